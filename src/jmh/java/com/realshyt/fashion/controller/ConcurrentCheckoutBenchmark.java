@@ -0,0 +1,122 @@
+package com.realshyt.fashion.controller;
+
+import com.realshyt.fashion.RealshytFashionBackendApplication;
+import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout throughput over HTTP with 5,000 checkouts in flight at once,
+ * on Tomcat's platform thread pool versus virtual threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ConcurrentCheckoutBenchmark {
+
+    private static final int CONCURRENT_CHECKOUTS = 5000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient httpClient;
+    private URI ordersUri;
+    private String orderJson;
+
+    @Setup
+    public void startApplication() {
+        context = new SpringApplicationBuilder(RealshytFashionBackendApplication.class)
+            .properties(
+                "server.port=0",
+                "server.tomcat.max-connections=" + (CONCURRENT_CHECKOUTS * 2),
+                "server.tomcat.accept-count=" + CONCURRENT_CHECKOUTS,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "spring.datasource.url=jdbc:h2:mem:concurrent_checkout_" + virtualThreads,
+                "api.concurrency.acquire-timeout=5m",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.com.realshyt.fashion=WARN")
+            .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        ordersUri = URI.create("http://localhost:" + port + "/api/orders");
+
+        Product product = new Product();
+        product.setName("Benchmark Hoodie");
+        product.setPrice(new BigDecimal("650000"));
+        product.setCategory("Benchmark");
+        product.setStockQuantity(Integer.MAX_VALUE);
+        Long productId = context.getBean(ProductRepository.class).save(product).getId();
+        orderJson = """
+            {"customerName":"Benchmark","customerEmail":"benchmark@example.com",\
+            "shippingAddress":"Jl. Benchmark 1","orderItems":[{"product":{"id":%d},"quantity":1}]}"""
+            .formatted(productId);
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .build();
+    }
+
+    @TearDown
+    public void stopApplication() {
+        httpClient.close();
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_CHECKOUTS)
+    public int checkoutBurst() {
+        HttpRequest request = HttpRequest.newBuilder(ordersUri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(orderJson))
+            .build();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_CHECKOUTS);
+        for (int i = 0; i < CONCURRENT_CHECKOUTS; i++) {
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        int created = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 201) {
+                created++;
+            }
+        }
+        if (created != CONCURRENT_CHECKOUTS) {
+            throw new IllegalStateException("Only " + created + " of " + CONCURRENT_CHECKOUTS + " checkouts succeeded");
+        }
+        return created;
+    }
+}
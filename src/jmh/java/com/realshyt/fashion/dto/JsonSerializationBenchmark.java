@@ -0,0 +1,98 @@
+package com.realshyt.fashion.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OrderItem;
+import com.realshyt.fashion.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a product and of an order with ten items, the entity and the API DTO,
+ * using an ObjectMapper configured the way Spring MVC configures it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Product product;
+    private Order order;
+    private OrderResponse orderResponse;
+
+    @Setup
+    public void prepare() {
+        product = product(1L);
+
+        order = new Order();
+        order.setId(1024L);
+        order.setCustomerName("Benchmark Customer");
+        order.setCustomerEmail("benchmark@example.com");
+        order.setShippingAddress("Jl. Benchmark 1, Jakarta");
+        order.setStatus(Order.OrderStatus.PENDING_PAYMENT);
+        order.setCreatedAt(LocalDateTime.of(2025, 1, 15, 10, 0));
+        order.setUpdatedAt(order.getCreatedAt());
+        BigDecimal total = BigDecimal.ZERO;
+        for (long i = 0; i < 10; i++) {
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setOrder(order);
+            item.setProduct(product(i));
+            item.setQuantity(2);
+            item.setPrice(item.getProduct().getPrice());
+            item.calculateSubtotal();
+            total = total.add(item.getSubtotal());
+            order.getOrderItems().add(item);
+        }
+        order.setTotalAmount(total);
+        orderResponse = OrderResponse.from(order);
+    }
+
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] orderEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] orderResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderResponse);
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("REAL SHYT Hoodie " + id);
+        product.setDescription("Heavyweight fleece hoodie with puff print graphics");
+        product.setPrice(new BigDecimal("1399000.00"));
+        product.setCategory("Hoodies");
+        product.setStockQuantity(42);
+        product.setImageUrl("https://cdn.example.com/products/" + id + ".jpg");
+        product.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+        product.setUpdatedAt(product.getCreatedAt());
+        return product;
+    }
+}
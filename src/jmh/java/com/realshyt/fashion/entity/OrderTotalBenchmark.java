@@ -0,0 +1,62 @@
+package com.realshyt.fashion.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderItem#calculateSubtotal()} and the order total as computed in {@code OrderService.createOrder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int cartSize;
+
+    private final List<OrderItem> items = new ArrayList<>();
+
+    @Setup
+    public void prepare() {
+        for (int i = 0; i < cartSize; i++) {
+            OrderItem item = new OrderItem();
+            item.setQuantity(1 + i % 4);
+            item.setPrice(new BigDecimal("249999.00"));
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal subtotal() {
+        OrderItem item = items.get(0);
+        item.calculateSubtotal();
+        return item.getSubtotal();
+    }
+
+    @Benchmark
+    public BigDecimal orderTotal() {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            item.calculateSubtotal();
+            totalAmount = totalAmount.add(item.getSubtotal());
+        }
+        return totalAmount;
+    }
+}
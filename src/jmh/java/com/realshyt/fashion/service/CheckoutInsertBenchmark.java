@@ -0,0 +1,95 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.RealshytFashionBackendApplication;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OrderItem;
+import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout insert throughput against the in-memory H2 database.
+ * {@code jdbcBatchSize=1} is the unbatched baseline; compare it with the batched run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class CheckoutInsertBenchmark {
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    @Param({"10"})
+    public int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @Setup
+    public void startApplication() {
+        context = new SpringApplicationBuilder(RealshytFashionBackendApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:checkout_benchmark_" + jdbcBatchSize,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.com.realshyt.fashion=WARN")
+            .run();
+        orderService = context.getBean(OrderService.class);
+
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        for (int i = 0; i < cartSize; i++) {
+            Product product = new Product();
+            product.setName("Benchmark Item " + i);
+            product.setPrice(new BigDecimal("250000"));
+            product.setCategory("Benchmark");
+            product.setStockQuantity(Integer.MAX_VALUE);
+            productIds.add(productRepository.save(product).getId());
+        }
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order checkout() {
+        Order order = new Order();
+        order.setCustomerName("Benchmark");
+        order.setCustomerEmail("benchmark@example.com");
+        order.setShippingAddress("Jl. Benchmark 1");
+        for (Long productId : productIds) {
+            Product product = new Product();
+            product.setId(productId);
+
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1);
+            order.getOrderItems().add(item);
+        }
+        return orderService.createOrder(order);
+    }
+}
@@ -0,0 +1,61 @@
+package com.realshyt.fashion.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CurrencyConversionService#convert} for a cross rate, a conversion to the IDR base and a no-op,
+ * and {@link CurrencyConversionService#convertAll} for a 100-item price list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    @Param({"USD:EUR", "SGD:IDR", "IDR:IDR"})
+    public String pair;
+
+    private final CurrencyConversionService service = new CurrencyConversionService();
+    private final BigDecimal amount = new BigDecimal("1249.99");
+
+    private final List<BigDecimal> priceList = new ArrayList<>();
+
+    private String from;
+    private String to;
+
+    @Setup
+    public void parsePair() {
+        from = pair.substring(0, 3);
+        to = pair.substring(4);
+        for (int i = 0; i < 100; i++) {
+            priceList.add(new BigDecimal(99_000 + i * 5_000));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal convert() {
+        return service.convert(amount, from, to);
+    }
+
+    @Benchmark
+    public List<BigDecimal> convertPriceList() {
+        return service.convertAll(priceList, CurrencyCode.fromCode(from), CurrencyCode.fromCode(to));
+    }
+}
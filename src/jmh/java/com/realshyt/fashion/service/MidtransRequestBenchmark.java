@@ -0,0 +1,72 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OrderItem;
+import com.realshyt.fashion.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentService#buildMidtransRequest} for an IDR cart and a cart that needs per-item conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MidtransRequestBenchmark {
+
+    @Param({"IDR", "USD"})
+    public String currency;
+
+    @Param({"10"})
+    public int cartSize;
+
+    private static final Duration RESERVATION_TTL = Duration.ofMinutes(60);
+
+    private FxRateSnapshot fxRates;
+    private Order order;
+
+    @Setup
+    public void prepare() {
+        fxRates = new CurrencyConversionService().currentSnapshot();
+
+        order = new Order();
+        order.setId(1024L);
+        order.setCurrency(currency);
+        order.setCreatedAt(LocalDateTime.of(2025, 1, 15, 10, 0));
+        for (int i = 0; i < cartSize; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Benchmark Item " + i);
+
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1 + i % 3);
+            item.setPrice(new BigDecimal("89.99"));
+            order.getOrderItems().add(item);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> buildMidtransRequest() {
+        return PaymentService.buildMidtransRequest(order, fxRates, "ORDER-1024-1736912345678",
+            "Benchmark Customer", "benchmark@example.com", "081234567890", new BigDecimal("1439840"), RESERVATION_TTL);
+    }
+}
@@ -0,0 +1,87 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to replay a journal of {@code records} transitions into final order and payment statuses,
+ * i.e. the in-memory part of {@link PaymentJournalReplayer#rebuildStatusTables()}.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=PaymentJournalReplay}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentJournalReplayBenchmark {
+
+    @Param({"1000000"})
+    public int records;
+
+    private Path directory;
+    private PaymentJournal journal;
+    private PaymentJournalReplayer replayer;
+
+    @Setup
+    public void writeJournal() throws IOException {
+        directory = Files.createTempDirectory("payment-journal-benchmark");
+        journal = new PaymentJournal(true, directory, DataSize.ofMegabytes(64), false, new SimpleMeterRegistry());
+        journal.open();
+        BigDecimal amount = new BigDecimal("1250000.00");
+        // created, notified, settled: three records per order
+        for (int i = 0; i < records; i += 3) {
+            long orderId = i / 3 + 1;
+            String midtransOrderId = "ORDER-" + orderId + "-1736912345678";
+            journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, orderId, orderId, Payment.PaymentStatus.PENDING,
+                Order.OrderStatus.PENDING_PAYMENT, amount, midtransOrderId, null);
+            journal.append(PaymentJournal.RecordType.NOTIFICATION, orderId, orderId, null, null, null,
+                midtransOrderId, "settlement/200");
+            journal.append(PaymentJournal.RecordType.PAYMENT_STATUS, orderId, orderId, Payment.PaymentStatus.SUCCESS,
+                Order.OrderStatus.PROCESSING, amount, midtransOrderId, "settlement");
+        }
+        replayer = new PaymentJournalReplayer(journal, null, null, null);
+    }
+
+    @TearDown
+    public void deleteJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long replayRecords() {
+        return journal.replay(record -> { });
+    }
+
+    @Benchmark
+    public PaymentJournalReplayer.ReplayedState replayIntoStatuses() {
+        return replayer.replay();
+    }
+}
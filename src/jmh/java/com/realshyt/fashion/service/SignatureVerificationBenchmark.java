@@ -0,0 +1,73 @@
+package com.realshyt.fashion.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook signature verification, previous implementation versus {@link MidtransSignatureVerifier}.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SignatureVerification -PjmhProfilers=gc}
+ * to get bytes/op ({@code gc.alloc.rate.norm}) next to ns/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+
+    private static final String SERVER_KEY = "SB-Mid-server-benchmark-key";
+
+    private final MidtransSignatureVerifier verifier = new MidtransSignatureVerifier(SERVER_KEY);
+
+    private String orderId;
+    private String statusCode;
+    private String grossAmount;
+    private String signature;
+
+    @Setup
+    public void sign() throws Exception {
+        orderId = "ORDER-1024-1736912345678";
+        statusCode = "200";
+        grossAmount = "1250000.00";
+        byte[] digest = MessageDigest.getInstance("SHA-512")
+            .digest((orderId + statusCode + grossAmount + SERVER_KEY).getBytes(StandardCharsets.UTF_8));
+        signature = HexFormat.of().formatHex(digest);
+    }
+
+    @Benchmark
+    public boolean pooledVerifier() {
+        return verifier.verify(orderId, statusCode, grossAmount, signature);
+    }
+
+    // The implementation PaymentService used before MidtransSignatureVerifier
+    @Benchmark
+    public boolean previousImplementation() throws Exception {
+        String signatureString = orderId + statusCode + grossAmount + SERVER_KEY;
+
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        byte[] hash = md.digest(signatureString.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) hexString.append('0');
+            hexString.append(hex);
+        }
+
+        return hexString.toString().equals(signature);
+    }
+}
@@ -0,0 +1,92 @@
+package com.realshyt.fashion.client;
+
+import com.realshyt.fashion.service.CurrencyCode;
+import com.realshyt.fashion.service.FxRateProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Polls an HTTP endpoint returning a JSON object of rates to IDR ({@code {"USD": 16000, ...}})
+ * from a single background thread.
+ */
+@Component
+@ConditionalOnProperty(name = "fx.provider", havingValue = "http")
+@Slf4j
+public class HttpFxRateProvider implements FxRateProvider {
+    
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+        new ParameterizedTypeReference<>() {
+        };
+    
+    private final WebClient webClient;
+    private final String url;
+    private final Duration pollInterval;
+    private final Duration timeout;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable ->
+        Thread.ofPlatform().daemon().name("fx-rate-poller").unstarted(runnable));
+    
+    public HttpFxRateProvider(
+            WebClient.Builder webClientBuilder,
+            @Value("${fx.http.url:http://localhost:8089/rates}") String url,
+            @Value("${fx.http.poll-interval:5m}") Duration pollInterval,
+            @Value("${fx.http.timeout:5s}") Duration timeout) {
+        this.webClient = webClientBuilder.baseUrl(url).build();
+        this.url = url;
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+    }
+    
+    @Override
+    public String name() {
+        return "http:" + url;
+    }
+    
+    @Override
+    public Map<CurrencyCode, BigDecimal> loadRates() throws IOException {
+        Map<String, Object> body;
+        try {
+            body = webClient.get()
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .block(timeout);
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to fetch FX rates from " + url + ": " + e.getMessage(), e);
+        }
+        if (body == null) {
+            throw new IOException("Empty FX rate response from " + url);
+        }
+        return FxRateProvider.parseRates(body);
+    }
+    
+    @Override
+    public void watch(Consumer<Map<CurrencyCode, BigDecimal>> listener) {
+        long intervalMillis = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                listener.accept(loadRates());
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Keeping current FX rates: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+}
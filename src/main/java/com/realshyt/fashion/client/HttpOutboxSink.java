@@ -0,0 +1,55 @@
+package com.realshyt.fashion.client;
+
+import com.realshyt.fashion.entity.OutboxEvent;
+import com.realshyt.fashion.service.OutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * POSTs each batch of outbox events as a JSON array; any non-2xx response fails the batch.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "http")
+public class HttpOutboxSink implements OutboxSink {
+    
+    private final WebClient webClient;
+    private final String url;
+    private final Duration timeout;
+    
+    public HttpOutboxSink(
+            WebClient.Builder webClientBuilder,
+            @Value("${outbox.http.url:http://localhost:8090/events}") String url,
+            @Value("${outbox.http.timeout:5s}") Duration timeout) {
+        this.webClient = webClientBuilder.baseUrl(url).build();
+        this.url = url;
+        this.timeout = timeout;
+    }
+    
+    @Override
+    public String name() {
+        return "http:" + url;
+    }
+    
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        String body = events.stream().map(OutboxSink::toJson).collect(Collectors.joining(",", "[", "]"));
+        try {
+            webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to deliver " + events.size() + " outbox events to " + url + ": " + e.getMessage(), e);
+        }
+    }
+}
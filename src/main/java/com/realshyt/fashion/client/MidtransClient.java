@@ -0,0 +1,222 @@
+package com.realshyt.fashion.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Midtrans Snap API client on a pooled Reactor Netty connection provider.
+ * 
+ * Calls have connect and response timeouts and a circuit breaker fails fast while Midtrans keeps
+ * failing. Creating a transaction is not idempotent, so only failures where Midtrans cannot have
+ * processed the request (connect errors, 429 and 503) are retried, with jittered exponential backoff.
+ * When the request may have been processed (response timeout, dropped connection, other 5xx) the
+ * transaction status is looked up by order_id instead, and {@link MidtransOutcomeUnknownException}
+ * is thrown unless Midtrans confirms it has no such transaction. 4xx responses are neither retried
+ * nor counted against the breaker. Round trips (retries included) are timed as
+ * {@code midtrans.requests}, tagged by outcome.
+ */
+@Component
+@Slf4j
+public class MidtransClient {
+    
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+        new ParameterizedTypeReference<>() {
+        };
+    
+    private final WebClient webClient;
+    private final String statusApiUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final MeterRegistry meterRegistry;
+    
+    public MidtransClient(
+            WebClient.Builder webClientBuilder,
+            @Value("${midtrans.api-url:https://app.sandbox.midtrans.com/snap/v1/transactions}") String apiUrl,
+            @Value("${midtrans.status-api-url:https://api.sandbox.midtrans.com/v2}") String statusApiUrl,
+            @Value("${midtrans.server-key:SB-Mid-server-YOUR_SERVER_KEY}") String serverKey,
+            @Value("${midtrans.client.max-connections:100}") int maxConnections,
+            @Value("${midtrans.client.max-pending-acquires:5000}") int maxPendingAcquires,
+            @Value("${midtrans.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${midtrans.client.read-timeout:10s}") Duration readTimeout,
+            @Value("${midtrans.client.max-retries:2}") int maxRetries,
+            @Value("${midtrans.client.retry-backoff:200ms}") Duration retryBackoff,
+            @Value("${midtrans.client.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${midtrans.client.circuit-breaker.open-duration:30s}") Duration openDuration,
+            MeterRegistry meterRegistry) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("midtrans")
+            .maxConnections(maxConnections)
+            // With virtual threads every checkout can be waiting for a connection at once
+            .pendingAcquireMaxCount(maxPendingAcquires)
+            .pendingAcquireTimeout(connectTimeout.plus(readTimeout))
+            .maxIdleTime(Duration.ofSeconds(30))
+            .evictInBackground(Duration.ofSeconds(60))
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(readTimeout);
+        
+        String auth = Base64.getEncoder().encodeToString((serverKey + ":").getBytes(StandardCharsets.UTF_8));
+        this.webClient = webClientBuilder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .baseUrl(apiUrl)
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Basic " + auth)
+            .build();
+        this.statusApiUrl = statusApiUrl;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("midtrans.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("Midtrans circuit breaker state (0 closed, 1 open, 2 half-open)")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Create a Snap transaction and return the response body (token, redirect_url)
+     */
+    public Map<String, Object> createTransaction(Map<String, Object> request) {
+        if (!circuitBreaker.tryAcquire()) {
+            meterRegistry.counter("midtrans.circuit.rejections").increment();
+            throw new MidtransUnavailableException("Midtrans API unavailable: circuit breaker is open");
+        }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Map<String, Object> response = webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                    .jitter(0.5)
+                    .filter(MidtransClient::isRetryable)
+                    .doBeforeRetry(signal -> log.warn("Retrying Midtrans call (attempt {}): {}",
+                        signal.totalRetries() + 1, signal.failure().getMessage())))
+                .block();
+            circuitBreaker.recordSuccess();
+            return response;
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.isRetryExhausted(e) ? e.getCause() : Exceptions.unwrap(e);
+            log.error("Error calling Midtrans API: {}", cause.getMessage());
+            if (!isTransient(cause)) {
+                outcome = "client_error";
+                circuitBreaker.recordSuccess(); // Midtrans answered; the request itself was rejected
+                throw new RuntimeException("Failed to call Midtrans API: " + cause.getMessage(), cause);
+            }
+            outcome = "failure";
+            circuitBreaker.recordFailure();
+            if (!isRetryable(cause) && !confirmedAbsent(orderId(request))) {
+                outcome = "unknown";
+                throw new MidtransOutcomeUnknownException(orderId(request), cause);
+            }
+            throw new MidtransUnavailableException("Failed to call Midtrans API: " + cause.getMessage(), cause);
+        } finally {
+            sample.stop(Timer.builder("midtrans.requests")
+                .description("Midtrans Snap round trips, retries included")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Look up a transaction by order_id on the Midtrans status API.
+     * Empty when Midtrans has no such transaction; throws when the lookup itself fails.
+     */
+    public Optional<Map<String, Object>> getTransactionStatus(String orderId) {
+        try {
+            Map<String, Object> status = webClient.get()
+                .uri(statusApiUrl + "/{orderId}/status", orderId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .block();
+            // Unknown orders may also come back as HTTP 200 with status_code 404 in the body
+            if (status == null || "404".equals(String.valueOf(status.get("status_code")))) {
+                return Optional.empty();
+            }
+            return Optional.of(status);
+        } catch (WebClientResponseException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+    
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+    
+    private boolean confirmedAbsent(String orderId) {
+        if (orderId == null) {
+            return false;
+        }
+        try {
+            return getTransactionStatus(orderId).isEmpty();
+        } catch (RuntimeException e) {
+            log.warn("Midtrans status lookup for {} failed: {}", orderId, e.getMessage());
+            return false;
+        }
+    }
+    
+    private static String orderId(Map<String, Object> request) {
+        if (request.get("transaction_details") instanceof Map<?, ?> details && details.get("order_id") != null) {
+            return details.get("order_id").toString();
+        }
+        return null;
+    }
+    
+    /**
+     * Failures that count against the breaker: no answer at all, 5xx or 429
+     */
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientRequestException) {
+            return true;
+        }
+        return error instanceof WebClientResponseException response
+            && (response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429);
+    }
+    
+    /**
+     * Failures where Midtrans cannot have created the transaction, so sending it again is safe
+     */
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientRequestException) {
+            // Only the connect phase: once the request is written a timeout says nothing about the outcome
+            for (Throwable cause = error.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                        || cause instanceof NoRouteToHostException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return error instanceof WebClientResponseException response
+            && (response.getStatusCode().value() == 503 || response.getStatusCode().value() == 429);
+    }
+}
@@ -0,0 +1,21 @@
+package com.realshyt.fashion.client;
+
+/**
+ * Thrown when a Snap request may have reached Midtrans but no answer came back (a response timeout,
+ * a dropped connection or an ambiguous 5xx) and a status lookup could not show that the transaction
+ * was never created. The request is not retried, so callers must keep the payment intent and let
+ * the Midtrans notification or the reservation expiry settle it.
+ */
+public class MidtransOutcomeUnknownException extends RuntimeException {
+    
+    private final String orderId;
+    
+    public MidtransOutcomeUnknownException(String orderId, Throwable cause) {
+        super("Midtrans did not confirm transaction " + orderId + ": " + cause.getMessage(), cause);
+        this.orderId = orderId;
+    }
+    
+    public String getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.realshyt.fashion.client;
+
+/**
+ * Thrown when Midtrans could not be reached or kept failing (connect errors, timeouts, 5xx, 429,
+ * or an open circuit breaker) and no transaction was created. Unlike a 4xx rejection the same
+ * request may succeed later.
+ */
+public class MidtransUnavailableException extends RuntimeException {
+    
+    public MidtransUnavailableException(String message) {
+        super(message);
+    }
+    
+    public MidtransUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
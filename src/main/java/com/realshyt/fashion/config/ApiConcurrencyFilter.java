@@ -0,0 +1,105 @@
+package com.realshyt.fashion.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps concurrent database-bound API requests below the size of the database pool.
+ *
+ * With platform threads the Tomcat pool bounds concurrency; with virtual threads every request
+ * gets a thread, so thousands of checkouts, payment creations, webhooks or order listings would
+ * queue inside Hikari and fail after its connection timeout. Excess requests wait here in arrival
+ * order instead and are rejected with 503 once {@code api.concurrency.acquire-timeout} passes.
+ * Runs after {@link IdempotencyFilter} so replayed requests never take a permit. Catalog reads
+ * (GET /api/products/**) are served from memory and are not limited.
+ * 
+ * The pool is split three ways:
+ * <ul>
+ *   <li>{@code api.concurrency.reserved-connections} stay free for background work (notification
+ *   processing, outbox relay, reservation expiry) and idempotency claims;</li>
+ *   <li>{@code api.concurrency.export-max-in-flight} for /api/exports, which holds its connection for
+ *   the whole stream;</li>
+ *   <li>the rest for all other API requests, unless {@code api.concurrency.max-in-flight} is set.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(1)
+@Slf4j
+public class ApiConcurrencyFilter extends OncePerRequestFilter {
+    
+    private final Semaphore requestPermits;
+    private final Semaphore exportPermits;
+    private final long acquireTimeoutNanos;
+    
+    public ApiConcurrencyFilter(
+            @Value("${api.concurrency.max-in-flight:0}") int maxInFlight,
+            @Value("${api.concurrency.export-max-in-flight:1}") int exportMaxInFlight,
+            @Value("${api.concurrency.reserved-connections:4}") int reservedConnections,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${api.concurrency.acquire-timeout:5s}") Duration acquireTimeout) {
+        int headroomCap = Math.max(1, poolSize - reservedConnections - exportMaxInFlight);
+        if (maxInFlight <= 0) {
+            maxInFlight = headroomCap;
+        } else if (maxInFlight > headroomCap) {
+            log.warn("api.concurrency.max-in-flight={} leaves fewer than {} of {} pool connections for exports and background work",
+                maxInFlight, reservedConnections + exportMaxInFlight, poolSize);
+        }
+        this.requestPermits = new Semaphore(maxInFlight, true);
+        this.exportPermits = new Semaphore(Math.max(1, exportMaxInFlight), true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/")
+            || (HttpMethod.GET.matches(request.getMethod()) && (path.equals("/api/products") || path.startsWith("/api/products/")));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Semaphore permits = request.getRequestURI().startsWith("/api/exports/") ? exportPermits : requestPermits;
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("Rejecting {} {}: {} requests waiting for a database slot",
+                request.getMethod(), request.getRequestURI(), permits.getQueueLength());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many concurrent requests, please retry\"}");
+            return;
+        }
+        
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
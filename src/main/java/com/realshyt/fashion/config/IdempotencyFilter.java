@@ -0,0 +1,220 @@
+package com.realshyt.fashion.config;
+
+import com.realshyt.fashion.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Makes order and payment creation safe to retry.
+ *
+ * A POST to /api/orders or /api/payments/create carrying an {@code Idempotency-Key} header runs
+ * once; retries with the same key and body get the stored response bytes back (marked with
+ * {@code Idempotent-Replayed: true}) without reserving stock or calling Midtrans again. Reusing a
+ * key for a different body is rejected with 422. Requests without the header are unaffected.
+ * The body is buffered for hashing, so bodies over {@code idempotency.max-body-size} get 413.
+ */
+@Component
+@Order(0)
+public class IdempotencyFilter extends OncePerRequestFilter {
+    
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+    
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/api/orders", "/api/payments/create");
+    private static final int MAX_KEY_LENGTH = 200;
+    
+    private final IdempotencyService idempotencyService;
+    private final int maxBodySize;
+    
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             @Value("${idempotency.max-body-size:64KB}") DataSize maxBodySize) {
+        this.idempotencyService = idempotencyService;
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+            || !IDEMPOTENT_PATHS.contains(request.getRequestURI())
+            || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientKey = request.getHeader(IDEMPOTENCY_KEY).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                IDEMPOTENCY_KEY + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        
+        // Checked up front when declared, and the read is capped for chunked bodies
+        if (request.getContentLengthLong() > maxBodySize) {
+            writeTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodySize + 1);
+        if (body.length > maxBodySize) {
+            writeTooLarge(response);
+            return;
+        }
+        String requestHash = sha256(body);
+        String key = request.getRequestURI() + ":" + clientKey;
+        
+        IdempotencyService.Claim claim = idempotencyService.claim(key, requestHash);
+        switch (claim.outcome()) {
+            case REPLAY -> replay(response, claim.response());
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                IDEMPOTENCY_KEY + " was already used for a different request");
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                writeError(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY + " is still being processed");
+            }
+            case EXECUTE -> execute(new CachedBodyRequest(request, body), response, chain, key, requestHash);
+        }
+    }
+    
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         String key, String requestHash) throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, cachingResponse);
+            // Server and upstream errors (502/503 from Midtrans outages) may succeed on retry, so only 2xx-4xx outcomes are kept
+            if (cachingResponse.getStatus() < 500) {
+                idempotencyService.complete(key, requestHash, cachingResponse.getStatus(),
+                    cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.release(key);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+    
+    private static void replay(HttpServletResponse response, IdempotencyService.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        byte[] body = stored.body() != null ? stored.body() : new byte[0];
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+    
+    private void writeTooLarge(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CONNECTION, "close"); // the rest of the body is never read
+        writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body must not exceed " + maxBodySize + " bytes");
+    }
+    
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+    
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Request whose body was already read for hashing, replayed to the controller
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+                
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+                
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.realshyt.fashion.config;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * JDK proxies around the DataSource, its connections and statements that report every statement
+ * round trip to {@link SqlMonitor}. A JDBC batch is reported once, with its size.
+ *
+ * Bind parameters are only remembered (one array store per setter); they are rendered to text
+ * only when the statement turns out to be slow.
+ */
+final class MonitoredDataSource {
+    
+    private MonitoredDataSource() {
+    }
+    
+    // The monitor is looked up on first use so wrapping the DataSource does not create it early
+    static DataSource wrap(DataSource dataSource, Supplier<SqlMonitor> monitor) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrap(connection, monitor.get()) : result;
+        });
+    }
+    
+    private static Connection wrap(Connection connection, SqlMonitor monitor) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return wrap(statement, method.getReturnType(), sql, monitor);
+            }
+            return result;
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Statement wrap(Statement statement, Class<?> type, String preparedSql, SqlMonitor monitor) {
+        StatementState state = new StatementState(preparedSql);
+        return proxy((Class<Statement>) type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = state.preparedSql != null ? state.preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                int batchSize = name.equals("executeBatch") || name.equals("executeLargeBatch") ? state.batchSize : 0;
+                long start = System.nanoTime();
+                try {
+                    return invoke(target, method, args);
+                } finally {
+                    if (sql != null) {
+                        monitor.afterExecute(sql, state.parameters, state.parameterCount, batchSize, System.nanoTime() - start);
+                    }
+                    if (batchSize > 0) {
+                        state.batchSize = 0;
+                    }
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                state.bind(index, name.equals("setNull") ? null : args[1]); // setNull's second argument is the SQL type
+            } else if (name.equals("addBatch")) {
+                state.batchSize++;
+            } else if (name.equals("clearParameters")) {
+                state.parameterCount = 0;
+            }
+            return invoke(target, method, args);
+        });
+    }
+    
+    // Per statement, so only touched by the thread using the statement
+    private static final class StatementState {
+        
+        private final String preparedSql;
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private int batchSize;
+        
+        StatementState(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+        
+        void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+    
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,246 @@
+package com.realshyt.fashion.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Statement-level SQL monitoring, replacing {@code spring.jpa.show-sql}.
+ *
+ * Every statement is counted against the HTTP request running on its thread. When a request
+ * ends, its statement count is recorded per endpoint ({@code sql.statements.per_request}) and any
+ * SELECT it repeated at least {@code sql.monitor.n-plus-one-threshold} times is flagged as an N+1
+ * suspect for that endpoint. Statements slower than {@code sql.monitor.slow-query-threshold} are
+ * logged and kept in a fixed-size ring buffer. Bind parameters are recorded by type only, since
+ * values can be customer data; {@code sql.monitor.include-parameter-values=true} records values
+ * for local debugging. Everything is available at {@code /actuator/sql}.
+ *
+ * Fast statements cost two clock reads and a map increment; nothing is rendered or logged.
+ */
+@Component
+@Slf4j
+public class SqlMonitor {
+    
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final int MAX_SUSPECTS = 500;
+    
+    public record SlowQuery(Instant at, String endpoint, String sql, List<String> parameters, int batchSize,
+                            long durationMillis, String thread) {
+    }
+    
+    public record NPlusOneSuspect(String endpoint, String sql, int maxRepeats, long requests, Instant lastSeen) {
+    }
+    
+    private final long slowThresholdNanos;
+    private final int nPlusOneThreshold;
+    private final boolean includeParameterValues;
+    private final MeterRegistry meterRegistry;
+    
+    private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+    private final AtomicReferenceArray<SlowQuery> slowQueries;
+    private final AtomicLong slowQuerySequence = new AtomicLong();
+    private final ConcurrentHashMap<String, NPlusOneSuspect> suspects = new ConcurrentHashMap<>();
+    private final Counter slowQueryCounter;
+    
+    public SqlMonitor(@Value("${sql.monitor.slow-query-threshold:200ms}") Duration slowThreshold,
+                      @Value("${sql.monitor.slow-query-buffer-size:100}") int bufferSize,
+                      @Value("${sql.monitor.n-plus-one-threshold:5}") int nPlusOneThreshold,
+                      @Value("${sql.monitor.include-parameter-values:false}") boolean includeParameterValues,
+                      MeterRegistry meterRegistry) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.includeParameterValues = includeParameterValues;
+        this.meterRegistry = meterRegistry;
+        this.slowQueries = new AtomicReferenceArray<>(bufferSize);
+        this.slowQueryCounter = Counter.builder("sql.slow_queries")
+            .description("Statements slower than sql.monitor.slow-query-threshold")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Called by {@link MonitoredDataSource} after every statement round trip
+     */
+    void afterExecute(String sql, Object[] parameters, int parameterCount, int batchSize, long elapsedNanos) {
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.record(sql);
+        }
+        List<String> capture = captured.get();
+        if (capture != null) {
+            capture.add(sql);
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            recordSlow(request, sql, parameters, parameterCount, batchSize, elapsedNanos);
+        }
+    }
+    
+    void beginRequest(String description) {
+        currentRequest.set(new RequestStats(description));
+    }
+    
+    /**
+     * Finish the request on this thread and attribute its statements to the endpoint
+     */
+    void endRequest(String endpoint) {
+        RequestStats request = currentRequest.get();
+        currentRequest.remove();
+        if (request == null) {
+            return;
+        }
+        
+        DistributionSummary.builder("sql.statements.per_request")
+            .description("JDBC round trips per HTTP request")
+            .tag("endpoint", endpoint)
+            .register(meterRegistry)
+            .record(request.statements);
+        
+        if (request.selects == null) {
+            return;
+        }
+        request.selects.forEach((sql, repeats) -> {
+            if (repeats >= nPlusOneThreshold) {
+                flagNPlusOne(endpoint, sql, repeats);
+            }
+        });
+    }
+    
+    /**
+     * Run the action and return the statements it sent on this thread, in order; a JDBC batch
+     * appears once. For tests and benchmarks that check round trips.
+     */
+    public List<String> statementsOf(Runnable action) {
+        List<String> previous = captured.get();
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                captured.set(previous);
+            } else {
+                captured.remove();
+            }
+        }
+        return statements;
+    }
+    
+    /**
+     * Slow queries, newest first
+     */
+    public List<SlowQuery> slowQueries() {
+        List<SlowQuery> queries = new ArrayList<>();
+        long last = slowQuerySequence.get();
+        for (long sequence = last - 1; sequence >= 0 && sequence >= last - slowQueries.length(); sequence--) {
+            SlowQuery query = slowQueries.get((int) (sequence % slowQueries.length()));
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+    
+    /**
+     * N+1 suspects, most repeated first
+     */
+    public List<NPlusOneSuspect> nPlusOneSuspects() {
+        return suspects.values().stream()
+            .sorted(Comparator.comparingInt(NPlusOneSuspect::maxRepeats).reversed())
+            .toList();
+    }
+    
+    public void clear() {
+        for (int i = 0; i < slowQueries.length(); i++) {
+            slowQueries.set(i, null);
+        }
+        suspects.clear();
+    }
+    
+    public Duration slowQueryThreshold() {
+        return Duration.ofNanos(slowThresholdNanos);
+    }
+    
+    public int nPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+    
+    private void recordSlow(RequestStats request, String sql, Object[] parameters, int parameterCount,
+                            int batchSize, long elapsedNanos) {
+        String endpoint = request != null ? request.description : "thread " + Thread.currentThread().getName();
+        List<String> rendered = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            rendered.add(render(parameters[i]));
+        }
+        SlowQuery query = new SlowQuery(Instant.now(), endpoint, sql, rendered, batchSize,
+            Duration.ofNanos(elapsedNanos).toMillis(), Thread.currentThread().getName());
+        
+        long sequence = slowQuerySequence.getAndIncrement();
+        slowQueries.set((int) (sequence % slowQueries.length()), query);
+        slowQueryCounter.increment();
+        log.warn("Slow query ({} ms) in {}: {} {}", query.durationMillis(), endpoint, sql, rendered);
+    }
+    
+    private void flagNPlusOne(String endpoint, String sql, int repeats) {
+        String key = endpoint + '\n' + sql;
+        if (!suspects.containsKey(key) && suspects.size() >= MAX_SUSPECTS) {
+            return;
+        }
+        NPlusOneSuspect previous = suspects.get(key);
+        suspects.merge(key, new NPlusOneSuspect(endpoint, sql, repeats, 1, Instant.now()), (existing, latest) ->
+            new NPlusOneSuspect(endpoint, sql, Math.max(existing.maxRepeats(), repeats), existing.requests() + 1, latest.lastSeen()));
+        meterRegistry.counter("sql.n_plus_one", "endpoint", endpoint).increment();
+        if (previous == null) {
+            log.warn("Possible N+1 in {}: statement repeated {} times in one request: {}", endpoint, repeats, sql);
+        }
+    }
+    
+    private String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (!includeParameterValues) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = String.valueOf(value);
+        return text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text;
+    }
+    
+    // Only touched by the request's own thread
+    private static final class RequestStats {
+        
+        private final String description;
+        private int statements;
+        private Map<String, Integer> selects;
+        
+        RequestStats(String description) {
+            this.description = description;
+        }
+        
+        void record(String sql) {
+            statements++;
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                if (selects == null) {
+                    selects = new HashMap<>();
+                }
+                selects.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.realshyt.fashion.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes the application DataSource through {@link SqlMonitor}
+ */
+@Configuration
+public class SqlMonitorConfig {
+    
+    @Bean
+    static BeanPostProcessor sqlMonitorDataSourcePostProcessor(ObjectProvider<SqlMonitor> sqlMonitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return MonitoredDataSource.wrap(dataSource, SingletonSupplier.of(sqlMonitor::getObject));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.realshyt.fashion.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/sql}: slow queries and N+1 suspects; {@code DELETE} clears both.
+ * Per-endpoint statement counts are the {@code sql.statements.per_request} metric.
+ */
+@Component
+@Endpoint(id = "sql")
+public class SqlMonitorEndpoint {
+    
+    private final SqlMonitor sqlMonitor;
+    
+    public SqlMonitorEndpoint(SqlMonitor sqlMonitor) {
+        this.sqlMonitor = sqlMonitor;
+    }
+    
+    @ReadOperation
+    public Map<String, Object> sql() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("slowQueryThresholdMillis", sqlMonitor.slowQueryThreshold().toMillis());
+        report.put("nPlusOneThreshold", sqlMonitor.nPlusOneThreshold());
+        report.put("slowQueries", sqlMonitor.slowQueries());
+        report.put("nPlusOneSuspects", sqlMonitor.nPlusOneSuspects());
+        return report;
+    }
+    
+    @DeleteOperation
+    public void clear() {
+        sqlMonitor.clear();
+    }
+}
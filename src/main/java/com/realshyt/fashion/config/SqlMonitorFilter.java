@@ -0,0 +1,40 @@
+package com.realshyt.fashion.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Scopes {@link SqlMonitor} statement counts to a request and attributes them to the matched
+ * endpoint pattern (e.g. {@code GET /api/orders/{id}}), so metrics stay low-cardinality
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlMonitorFilter extends OncePerRequestFilter {
+    
+    private final SqlMonitor sqlMonitor;
+    
+    public SqlMonitorFilter(SqlMonitor sqlMonitor) {
+        this.sqlMonitor = sqlMonitor;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        sqlMonitor.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sqlMonitor.endRequest(request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.realshyt.fashion.controller;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportController {
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final ExportService exportService;
+    
+    /**
+     * Stream orders as NDJSON, oldest first
+     * GET /api/exports/orders?from=2025-01-01T00:00:00&to=2025-02-01T00:00:00&status=PROCESSING
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        StreamingResponseBody body = out ->
+            exportService.exportOrders(out, from != null ? from : EPOCH, to != null ? to : LocalDateTime.now(), status);
+        return ndjson("orders.ndjson", body);
+    }
+    
+    /**
+     * Stream payments as NDJSON, oldest first
+     * GET /api/exports/payments?from=2025-01-01T00:00:00&to=2025-02-01T00:00:00&status=SUCCESS
+     */
+    @GetMapping("/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Payment.PaymentStatus status) {
+        StreamingResponseBody body = out ->
+            exportService.exportPayments(out, from != null ? from : EPOCH, to != null ? to : LocalDateTime.now(), status);
+        return ndjson("payments.ndjson", body);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> ndjson(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+}
@@ -1,12 +1,16 @@
 package com.realshyt.fashion.controller;
 
+import com.realshyt.fashion.client.MidtransOutcomeUnknownException;
+import com.realshyt.fashion.client.MidtransUnavailableException;
 import com.realshyt.fashion.dto.MidtransNotification;
 import com.realshyt.fashion.dto.PaymentRequest;
 import com.realshyt.fashion.dto.PaymentResponse;
 import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.service.PaymentNotificationService;
 import com.realshyt.fashion.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,17 +26,31 @@ import java.util.Map;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final PaymentNotificationService paymentNotificationService;
     
     /**
      * Create payment for an order
      * POST /api/payments/create
+     * 
+     * Midtrans outages answer 503 and an unconfirmed Midtrans outcome 502, so an idempotent
+     * retry is not served a stored failure; rejected requests answer 400.
      */
     @PostMapping("/create")
     public ResponseEntity<?> createPayment(@RequestBody PaymentRequest request) {
         try {
-            log.info("Creating payment for order: {}", request.getOrderId());
+            log.debug("Creating payment for order: {}", request.getOrderId());
             PaymentResponse response = paymentService.createPayment(request);
             return ResponseEntity.ok(response);
+        } catch (MidtransUnavailableException e) {
+            log.warn("Midtrans unavailable for order {}: {}", request.getOrderId(), e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+        } catch (MidtransOutcomeUnknownException e) {
+            log.warn("Midtrans outcome unknown for order {}: {}", request.getOrderId(), e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(error);
         } catch (Exception e) {
             log.error("Error creating payment: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -48,12 +66,13 @@ public class PaymentController {
     @PostMapping("/notification")
     public ResponseEntity<?> handleNotification(@RequestBody MidtransNotification notification) {
         try {
-            log.info("Received Midtrans notification for order: {}", notification.getOrder_id());
-            paymentService.handleMidtransNotification(notification);
+            log.debug("Received Midtrans notification for order: {}", notification.getOrder_id());
+            boolean queued = paymentNotificationService.receive(notification);
             
+            // Acknowledge once stored; the notification is applied asynchronously
             Map<String, String> response = new HashMap<>();
             response.put("status", "success");
-            response.put("message", "Notification processed");
+            response.put("message", queued ? "Notification queued" : "Duplicate notification ignored");
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -1,12 +1,18 @@
 package com.realshyt.fashion.controller;
 
 import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.service.CatalogResponseCache;
+import com.realshyt.fashion.service.CurrencyCode;
 import com.realshyt.fashion.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/products")
@@ -14,28 +20,48 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    // Clients may store responses but must revalidate them with If-None-Match
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+    
     private final ProductService productService;
+    private final CatalogResponseCache catalogResponses;
     
+    // Catalog reads return pre-serialized JSON with an ETag; Spring answers a matching If-None-Match with 304.
+    // With ?currency=USD (or any supported code) prices are converted and rounded to that currency.
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getActiveProducts());
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String currency) {
+        if (currency == null) {
+            return cached(catalogResponses.activeProducts());
+        }
+        return withCurrency(currency, code -> cached(catalogResponses.activeProducts(code)));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getProductById(@PathVariable Long id, @RequestParam(required = false) String currency) {
+        if (currency == null) {
+            return catalogResponses.product(id)
+                .map(this::cached)
+                .orElse(ResponseEntity.notFound().build());
+        }
+        return withCurrency(currency, code -> catalogResponses.product(id, code)
+            .map(this::cached)
+            .orElse(ResponseEntity.notFound().build()));
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category));
+    public ResponseEntity<?> getProductsByCategory(@PathVariable String category,
+                                                   @RequestParam(required = false) String currency) {
+        if (currency == null) {
+            return cached(catalogResponses.productsByCategory(category));
+        }
+        return withCurrency(currency, code -> cached(catalogResponses.productsByCategory(category, code)));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productService.searchProducts(keyword, Math.max(1, Math.min(limit, 100))));
     }
     
     @PostMapping
@@ -61,4 +87,20 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+    
+    private ResponseEntity<?> withCurrency(String currency, Function<CurrencyCode, ResponseEntity<?>> response) {
+        CurrencyCode code = CurrencyCode.fromCode(currency);
+        if (code == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported currency: " + currency));
+        }
+        return response.apply(code);
+    }
+    
+    private ResponseEntity<byte[]> cached(CatalogResponseCache.Rendered rendered) {
+        return ResponseEntity.ok()
+            .eTag(rendered.etag())
+            .cacheControl(CATALOG_CACHE_CONTROL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(rendered.body());
+    }
 }
\ No newline at end of file
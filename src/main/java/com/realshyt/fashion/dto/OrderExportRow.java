@@ -0,0 +1,22 @@
+package com.realshyt.fashion.dto;
+
+import com.realshyt.fashion.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRow {
+    private Long id;
+    private String customerName;
+    private String customerEmail;
+    private BigDecimal totalAmount;
+    private String currency;
+    private Order.OrderStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.realshyt.fashion.dto;
+
+import com.realshyt.fashion.entity.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemResponse {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String productImageUrl;
+    private Integer quantity;
+    private BigDecimal price;
+    private BigDecimal subtotal;
+    private String currency;
+    
+    public static OrderItemResponse from(OrderItem item) {
+        return new OrderItemResponse(
+            item.getId(),
+            item.getProduct().getId(),
+            item.getProduct().getName(),
+            item.getProduct().getImageUrl(),
+            item.getQuantity(),
+            item.getPrice(),
+            item.getSubtotal(),
+            item.getCurrency()
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package com.realshyt.fashion.dto;
+
+import com.realshyt.fashion.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model for an order with its items.
+ * Build it from an order whose items and products were fetched up front
+ * (see {@code OrderRepository.findWithItemsById}) so mapping never triggers lazy loading.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResponse {
+    private Long id;
+    private String customerName;
+    private String customerEmail;
+    private String customerPhone;
+    private String shippingAddress;
+    private BigDecimal totalAmount;
+    private String currency;
+    private Order.OrderStatus status;
+    private List<OrderItemResponse> orderItems;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static OrderResponse from(Order order) {
+        return new OrderResponse(
+            order.getId(),
+            order.getCustomerName(),
+            order.getCustomerEmail(),
+            order.getCustomerPhone(),
+            order.getShippingAddress(),
+            order.getTotalAmount(),
+            order.getCurrency(),
+            order.getStatus(),
+            order.getOrderItems().stream().map(OrderItemResponse::from).toList(),
+            order.getCreatedAt(),
+            order.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package com.realshyt.fashion.dto;
+
+import com.realshyt.fashion.entity.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExportRow {
+    private Long id;
+    private Long orderId;
+    private String midtransOrderId;
+    private String transactionId;
+    private BigDecimal amount;
+    private String currency;
+    private Payment.PaymentStatus status;
+    private String paymentType;
+    private LocalDateTime transactionTime;
+    private LocalDateTime settlementTime;
+    private LocalDateTime createdAt;
+}
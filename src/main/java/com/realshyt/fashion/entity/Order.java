@@ -10,14 +10,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_orders_customer_email_created_at_id", columnList = "customer_email, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "customer_name", nullable = false)
@@ -51,6 +56,11 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Last outbox sequence number handed out for this order; only OrderRepository.incrementOutboxSequence
+    // writes it, so it keeps counting after delivered events are purged
+    @Column(name = "outbox_sequence", insertable = false, updatable = false)
+    private Integer outboxSequence;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
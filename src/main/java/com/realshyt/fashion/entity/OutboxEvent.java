@@ -0,0 +1,82 @@
+package com.realshyt.fashion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event written in the same transaction as the order/payment change it describes (outbox row).
+ * The relay delivers rows to the configured sink and marks them DELIVERED; the id is the event id
+ * consumers deduplicate on, since delivery is at least once.
+ * 
+ * Ids come from a pooled sequence and say nothing about order across instances; events of one order
+ * are ordered by {@code orderSequence}, assigned under the order's row lock.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_status_id", columnList = "status, id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_outbox_events_order_sequence", columnNames = {"order_id", "order_sequence"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private Long orderId;
+    
+    @Column(name = "order_sequence", nullable = false, updatable = false)
+    private int orderSequence;
+    
+    @Column(name = "event_type", nullable = false, updatable = false, length = 64)
+    private String eventType;
+    
+    @Column(nullable = false, updatable = false, length = 4000)
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    // Set while a relay is delivering the event; other relays skip it until then
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    
+    @Column(name = "last_error")
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+    
+    public enum OutboxStatus {
+        PENDING,
+        DELIVERED,
+        /** Gave up after outbox.max-attempts; holds back later events for the same order */
+        FAILED
+    }
+}
@@ -8,18 +8,21 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_created_at_id", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Payment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
     
     @OneToOne
-    @JoinColumn(name = "order_id", nullable = false)
+    @JoinColumn(name = "order_id", nullable = false, unique = true)
     private Order order;
     
     @Column(nullable = false)
@@ -63,6 +66,14 @@ public class Payment {
     @Column(name = "failure_reason")
     private String failureReason;
     
+    // Content hash of the rate snapshot the amount was converted to IDR with (FxRateSnapshot#version),
+    // the same on every instance, so the conversion can be reproduced
+    @Column(name = "fx_rate_version")
+    private Long fxRateVersion;
+    
+    @Column(name = "fx_rate", precision = 19, scale = 6)
+    private BigDecimal fxRate;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -87,6 +98,8 @@ public class Payment {
         FAILED,
         EXPIRED,
         CANCELLED,
-        REFUNDED
+        REFUNDED,
+        // Captured after the order was cancelled and its stock released; needs a refund or manual review
+        REFUND_REQUIRED
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.realshyt.fashion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Midtrans webhook notification received but not necessarily applied yet (inbox row).
+ * Midtrans re-sends notifications; the unique key drops duplicates on insert.
+ */
+@Entity
+@Table(name = "payment_notifications",
+    uniqueConstraints = @UniqueConstraint(name = "uk_payment_notifications_dedupe",
+        columnNames = {"midtrans_order_id", "transaction_status", "status_code"}),
+    indexes = @Index(name = "idx_payment_notifications_status_id", columnList = "status, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentNotification {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_notifications_seq")
+    @SequenceGenerator(name = "payment_notifications_seq", sequenceName = "payment_notifications_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "midtrans_order_id", nullable = false)
+    private String midtransOrderId;
+    
+    @Column(name = "transaction_status", nullable = false)
+    private String transactionStatus;
+    
+    @Column(name = "status_code", nullable = false)
+    private String statusCode;
+    
+    @Column(name = "payment_type")
+    private String paymentType;
+    
+    @Column(name = "fraud_status")
+    private String fraudStatus;
+    
+    @Column(name = "transaction_time")
+    private String transactionTime;
+    
+    @Column(name = "settlement_time")
+    private String settlementTime;
+    
+    @Column(name = "gross_amount")
+    private String grossAmount;
+    
+    @Column(name = "status_message")
+    private String statusMessage;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationStatus status = NotificationStatus.RECEIVED;
+    
+    @Column(name = "last_error")
+    private String lastError;
+    
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        receivedAt = LocalDateTime.now();
+    }
+    
+    public enum NotificationStatus {
+        RECEIVED,
+        PROCESSED,
+        FAILED
+    }
+}
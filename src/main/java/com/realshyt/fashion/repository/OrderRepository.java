@@ -1,9 +1,24 @@
 package com.realshyt.fashion.repository;
 
+import com.realshyt.fashion.dto.OrderExportRow;
 import com.realshyt.fashion.entity.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -13,4 +28,92 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByStatus(Order.OrderStatus status);
     
     List<Order> findByCustomerEmailOrderByCreatedAtDesc(String email);
-}
\ No newline at end of file
+    
+    // Order, items and products in a single query
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    Optional<Order> findWithItemsById(Long id);
+    
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+    
+    // Keyset pagination, newest first, on (created_at, id)
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPage(Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByStatusAfter(@Param("status") Order.OrderStatus status,
+                                      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                      Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.customerEmail = :email ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByCustomerEmail(@Param("email") String email, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.customerEmail = :email " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByCustomerEmailAfter(@Param("email") String email,
+                                             @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                             Pageable pageable);
+    
+    // Forward-only stream of flat rows for exports; rows are never attached to the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.realshyt.fashion.dto.OrderExportRow(" +
+           "o.id, o.customerName, o.customerEmail, o.totalAmount, o.currency, o.status, o.createdAt, o.updatedAt) " +
+           "FROM Order o WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "AND (:status IS NULL OR o.status = :status) ORDER BY o.createdAt, o.id")
+    Stream<OrderExportRow> streamForExport(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("status") Order.OrderStatus status);
+    
+    // Oldest orders still holding stock with their payment id, if any: [orderId, paymentId].
+    // Not locked, so the expiry job can lock payments before orders like every other writer
+    @Query("SELECT o.id, p.id FROM Order o LEFT JOIN Payment p ON p.order = o " +
+           "WHERE o.status IN :statuses AND o.createdAt < :cutoff ORDER BY o.createdAt")
+    List<Object[]> findExpiredWithPaymentIds(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                             @Param("cutoff") LocalDateTime cutoff,
+                                             Pageable pageable);
+    
+    // The given orders that still hold stock past the cutoff; rows locked by another worker are skipped
+    // where the database supports it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status IN :statuses AND o.createdAt < :cutoff ORDER BY o.id")
+    List<Order> findExpiredByIdInForUpdate(@Param("ids") Collection<Long> ids,
+                                           @Param("statuses") Collection<Order.OrderStatus> statuses,
+                                           @Param("cutoff") LocalDateTime cutoff);
+    
+    // Hands out the next outbox sequence number of an order; the update keeps the order row locked until commit
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.outboxSequence = COALESCE(o.outboxSequence, 0) + 1 WHERE o.id = :id")
+    int incrementOutboxSequence(@Param("id") Long id);
+    
+    @Query("SELECT o.outboxSequence FROM Order o WHERE o.id = :id")
+    Integer findOutboxSequence(@Param("id") Long id);
+    
+    // Total quantity per product across the given orders: [productId, quantity]
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.product.id")
+    List<Object[]> sumItemQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+    
+    long countByStatus(Order.OrderStatus status);
+    
+    // Units held by orders in the given statuses, i.e. reserved but not yet sold
+    @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order.status IN :statuses")
+    long sumQuantityByOrderStatusIn(@Param("statuses") Collection<Order.OrderStatus> statuses);
+    
+    // Used when rebuilding status from the payment journal; only rows currently in one of the from statuses move
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status IN :from")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("from") Collection<Order.OrderStatus> from,
+                           @Param("status") Order.OrderStatus status,
+                           @Param("now") LocalDateTime now);
+}
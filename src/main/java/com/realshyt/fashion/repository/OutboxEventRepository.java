@@ -0,0 +1,44 @@
+package com.realshyt.fashion.repository;
+
+import com.realshyt.fashion.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    List<OutboxEvent> findByOrderIdOrderByOrderSequence(Long orderId);
+    
+    // Only the first undelivered event of each order is eligible, so events for one order are delivered
+    // in order even with several relays; leased rows and rows locked by another relay's claim are skipped
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :pending AND e.nextAttemptAt <= :now "
+        + "AND (e.leaseUntil IS NULL OR e.leaseUntil <= :now) "
+        + "AND NOT EXISTS (SELECT p.id FROM OutboxEvent p WHERE p.orderId = e.orderId "
+        + "AND p.orderSequence < e.orderSequence AND p.status <> :delivered) "
+        + "ORDER BY e.id")
+    List<OutboxEvent> findDeliverableForUpdate(@Param("pending") OutboxEvent.OutboxStatus pending,
+                                               @Param("delivered") OutboxEvent.OutboxStatus delivered,
+                                               @Param("now") LocalDateTime now,
+                                               Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id IN :ids")
+    List<OutboxEvent> findByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :delivered AND e.deliveredAt < :cutoff")
+    int deleteDeliveredBefore(@Param("delivered") OutboxEvent.OutboxStatus delivered, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,32 @@
+package com.realshyt.fashion.repository;
+
+import com.realshyt.fashion.entity.PaymentNotification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentNotificationRepository extends JpaRepository<PaymentNotification, Long> {
+    
+    boolean existsByMidtransOrderIdAndTransactionStatusAndStatusCode(String midtransOrderId,
+                                                                     String transactionStatus,
+                                                                     String statusCode);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<PaymentNotification> findWithLockById(Long id);
+    
+    // Oldest notifications first (arrival order); rows locked by another worker are skipped where the database supports it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM PaymentNotification n WHERE n.status = :status ORDER BY n.id")
+    List<PaymentNotification> findBatchForUpdate(@Param("status") PaymentNotification.NotificationStatus status,
+                                                 Pageable pageable);
+}
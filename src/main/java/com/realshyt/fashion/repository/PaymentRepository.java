@@ -1,9 +1,22 @@
 package com.realshyt.fashion.repository;
 
+import com.realshyt.fashion.dto.PaymentExportRow;
 import com.realshyt.fashion.entity.Payment;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -15,4 +28,43 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByMidtransOrderId(String midtransOrderId);
     
     boolean existsByOrderId(Long orderId);
-}
\ No newline at end of file
+    
+    // Locked in id order so concurrent notification workers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.midtransOrderId IN :midtransOrderIds ORDER BY p.id")
+    List<Payment> findByMidtransOrderIdInForUpdate(@Param("midtransOrderIds") Collection<String> midtransOrderIds);
+    
+    // Locked in id order; rows held by a notification worker or a cancellation are skipped where the database supports it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM Payment p WHERE p.id IN :ids ORDER BY p.id")
+    List<Payment> findByIdInForUpdateSkipLocked(@Param("ids") Collection<Long> ids);
+    
+    // Forward-only stream of flat rows for exports; rows are never attached to the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.realshyt.fashion.dto.PaymentExportRow(" +
+           "p.id, p.order.id, p.midtransOrderId, p.transactionId, p.amount, p.currency, p.status, " +
+           "p.paymentType, p.transactionTime, p.settlementTime, p.createdAt) " +
+           "FROM Payment p WHERE p.createdAt >= :from AND p.createdAt < :to " +
+           "AND (:status IS NULL OR p.status = :status) ORDER BY p.createdAt, p.id")
+    Stream<PaymentExportRow> streamForExport(@Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("status") Payment.PaymentStatus status);
+    
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.updatedAt = :now " +
+           "WHERE p.order.id IN :orderIds AND p.status = :from")
+    int updateStatusByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                               @Param("from") Payment.PaymentStatus from,
+                               @Param("to") Payment.PaymentStatus to,
+                               @Param("now") LocalDateTime now);
+    
+    // Used when rebuilding status from the payment journal; order_id is unique, so one payment per order.
+    // Only rows currently in one of the from statuses move
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.updatedAt = :now WHERE p.order.id IN :orderIds AND p.status IN :from")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+                                @Param("from") Collection<Payment.PaymentStatus> from,
+                                @Param("status") Payment.PaymentStatus status,
+                                @Param("now") LocalDateTime now);
+}
@@ -2,6 +2,9 @@ package com.realshyt.fashion.repository;
 
 import com.realshyt.fashion.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -15,4 +18,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByNameContainingIgnoreCase(String name);
     
     List<Product> findByCategoryAndIsActiveTrue(String category);
-}
\ No newline at end of file
+    
+    // Conditional decrement: returns 0 when there is not enough stock, so concurrent checkouts can't oversell
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,74 @@
+package com.realshyt.fashion.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Least-recently-used cache of byte arrays bounded by their total size rather than entry count
+ */
+final class ByteBudgetLruCache<K> {
+    
+    private final long maxBytes;
+    private final LinkedHashMap<K, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalBytes;
+    
+    ByteBudgetLruCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+    
+    /**
+     * Get the cached value or compute it outside the lock; values larger than the whole budget are not cached
+     */
+    byte[] get(K key, Function<K, byte[]> loader) {
+        lock.lock();
+        try {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        byte[] value = loader.apply(key);
+        if (value.length > maxBytes) {
+            return value;
+        }
+        lock.lock();
+        try {
+            byte[] previous = entries.put(key, value);
+            totalBytes += value.length - (previous != null ? previous.length : 0);
+            Iterator<Map.Entry<K, byte[]>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            totalBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    long totalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CatalogSnapshot} in memory so catalog reads never hit the database.
+ * Writers call {@link #invalidateAfterCommit()}, which only marks the snapshot stale once the change
+ * is committed; a single background thread rebuilds it and swaps it in atomically. Invalidations that
+ * arrive during a rebuild are coalesced into one more rebuild, so checkouts never wait for a catalog
+ * reload or hold a second connection for it. A failed rebuild is logged and retried after
+ * {@code catalog.rebuild-retry-delay}; readers keep the previous snapshot meanwhile.
+ *
+ * Stock changes from checkouts and cancellations go through {@link #invalidateStockAfterCommit()}
+ * instead, which rebuilds at most once per {@code catalog.stock-refresh-interval}: on a busy day
+ * every sale would otherwise reload the catalog and change the ETag of every list, so polling
+ * clients would never get a 304. Displayed stock may lag by that interval; reservations are
+ * checked against the database, never against the snapshot.
+ */
+@Component
+@Slf4j
+public class CatalogCache {
+    
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readTransaction;
+    
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong requestedGeneration = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private long builtGeneration = -1; // guarded by rebuildLock
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicBoolean stockRebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable ->
+        Thread.ofPlatform().daemon().name("catalog-rebuilder").unstarted(runnable));
+    private final Duration retryDelay;
+    private final Duration stockRefreshInterval;
+    
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rebuilds;
+    
+    public CatalogCache(ProductRepository productRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${catalog.rebuild-retry-delay:5s}") Duration retryDelay,
+                        @Value("${catalog.stock-refresh-interval:5s}") Duration stockRefreshInterval) {
+        this.productRepository = productRepository;
+        this.retryDelay = retryDelay;
+        this.stockRefreshInterval = stockRefreshInterval;
+        
+        // Joins the caller's transaction on a first-use load; the background rebuilds have none
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        
+        this.hits = Counter.builder("catalog.cache.lookups").tag("result", "hit")
+            .description("Catalog reads served from the in-memory snapshot")
+            .register(meterRegistry);
+        this.misses = Counter.builder("catalog.cache.lookups").tag("result", "miss")
+            .description("Catalog reads that had to load the snapshot first")
+            .register(meterRegistry);
+        this.rebuilds = Counter.builder("catalog.cache.rebuilds")
+            .description("Number of catalog snapshot rebuilds")
+            .register(meterRegistry);
+        Gauge.builder("catalog.cache.version", versions, AtomicLong::get)
+            .description("Version of the catalog snapshot currently served")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Get the current snapshot, loading it on first use
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return refresh();
+    }
+    
+    /**
+     * Mark the snapshot stale once the surrounding transaction commits (immediately outside one) and
+     * schedule a background rebuild. Does no database work and never throws into the caller.
+     */
+    public void invalidateAfterCommit() {
+        afterCommit(this::invalidate);
+    }
+    
+    /**
+     * Like {@link #invalidateAfterCommit()} for stock-only changes, but the rebuild waits for
+     * {@code catalog.stock-refresh-interval} so all stock changes in that window share one rebuild
+     */
+    public void invalidateStockAfterCommit() {
+        afterCommit(this::invalidateStock);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * Load all products and publish a new snapshot on the calling thread.
+     * A caller whose change was already picked up by a concurrent rebuild returns without reloading.
+     */
+    public CatalogSnapshot refresh() {
+        return rebuild(requestedGeneration.incrementAndGet());
+    }
+    
+    private void invalidate() {
+        requestedGeneration.incrementAndGet();
+        scheduleRebuild(rebuildScheduled, 0);
+    }
+    
+    // A catalog edit in the meantime rebuilds right away; the delayed rebuild then finds nothing left to do
+    private void invalidateStock() {
+        requestedGeneration.incrementAndGet();
+        scheduleRebuild(stockRebuildScheduled, stockRefreshInterval.toMillis());
+    }
+    
+    private void scheduleRebuild(AtomicBoolean scheduled, long delayMillis) {
+        if (!scheduled.compareAndSet(false, true)) {
+            return; // the pending rebuild will pick up this generation
+        }
+        try {
+            rebuilder.schedule(() -> rebuildInBackground(scheduled), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            scheduled.set(false);
+            log.warn("Could not schedule a catalog rebuild: {}", e.getMessage());
+        }
+    }
+    
+    private void rebuildInBackground(AtomicBoolean scheduled) {
+        scheduled.set(false);
+        try {
+            rebuild(requestedGeneration.get());
+        } catch (RuntimeException e) {
+            log.warn("Catalog rebuild failed, serving the previous snapshot and retrying in {}: {}", retryDelay, e.getMessage());
+            scheduleRebuild(rebuildScheduled, retryDelay.toMillis());
+        }
+    }
+    
+    private CatalogSnapshot rebuild(long wanted) {
+        rebuildLock.lock();
+        try {
+            if (builtGeneration >= wanted) {
+                return snapshot.get();
+            }
+            long generation = requestedGeneration.get();
+            List<Product> products = readTransaction.execute(status -> productRepository.findAll());
+            CatalogSnapshot next = CatalogSnapshot.of(versions.incrementAndGet(), products);
+            snapshot.set(next);
+            builtGeneration = generation;
+            rebuilds.increment();
+            log.debug("Catalog snapshot v{} built with {} products", next.version(), products.size());
+            return next;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+    
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,184 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Product;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pre-serialized JSON for the catalog endpoints.
+ * Each response is rendered once per catalog snapshot and tagged with a strong ETag hashed from
+ * its content, so the tag survives restarts, matches across instances and changes exactly when
+ * the body does; unchanged polls can be answered with 304. Categories that don't exist get an
+ * uncached empty list, so client-supplied names never grow the per-snapshot memo.
+ *
+ * Responses with prices in another currency are rendered once per catalog version, FX rate
+ * version and currency, and kept in an LRU cache bounded by {@code catalog.price-lists.max-size}
+ * across all currencies. A change of either version makes the old entries unreachable and
+ * clears them. Their ETag hashes the content of the whole catalog, the rates, the currency and
+ * the response, which determine the body, instead of hashing each (possibly large) price list.
+ */
+@Component
+public class CatalogResponseCache {
+    
+    private final CatalogCache catalogCache;
+    private final CurrencyConversionService currencyConversionService;
+    private final ObjectMapper objectMapper;
+    private final ByteBudgetLruCache<PriceListKey> priceLists;
+    private final AtomicLong priceListCatalogVersion = new AtomicLong();
+    
+    public CatalogResponseCache(CatalogCache catalogCache,
+                                CurrencyConversionService currencyConversionService,
+                                ObjectMapper objectMapper,
+                                @Value("${catalog.price-lists.max-size:32MB}") DataSize maxSize) {
+        this.catalogCache = catalogCache;
+        this.currencyConversionService = currencyConversionService;
+        this.objectMapper = objectMapper;
+        this.priceLists = new ByteBudgetLruCache<>(maxSize.toBytes());
+    }
+    
+    public record Rendered(byte[] body, String etag) {
+    }
+    
+    private record PriceListKey(long catalogVersion, long fxVersion, CurrencyCode currency, String response) {
+    }
+    
+    private static final int ETAG_BYTES = 16;
+    private static final Rendered EMPTY_LIST = rendered("[]".getBytes(StandardCharsets.UTF_8));
+    
+    public Rendered activeProducts() {
+        CatalogSnapshot catalog = catalogCache.current();
+        return render(catalog, "active", catalog.activeProducts());
+    }
+    
+    public Rendered productsByCategory(String category) {
+        CatalogSnapshot catalog = catalogCache.current();
+        if (!catalog.hasCategory(category)) {
+            return EMPTY_LIST;
+        }
+        return render(catalog, "category:" + category, catalog.findByCategory(category));
+    }
+    
+    public Optional<Rendered> product(Long id) {
+        CatalogSnapshot catalog = catalogCache.current();
+        Product product = catalog.findById(id);
+        return product == null ? Optional.empty() : Optional.of(render(catalog, "product:" + id, product));
+    }
+    
+    public Rendered activeProducts(CurrencyCode currency) {
+        CatalogSnapshot catalog = catalogCache.current();
+        return renderPriced(catalog, currency, "active", fx -> priced(catalog.activeProducts(), fx, currency));
+    }
+    
+    public Rendered productsByCategory(String category, CurrencyCode currency) {
+        CatalogSnapshot catalog = catalogCache.current();
+        if (!catalog.hasCategory(category)) {
+            return EMPTY_LIST;
+        }
+        return renderPriced(catalog, currency, "category:" + category,
+            fx -> priced(catalog.findByCategory(category), fx, currency));
+    }
+    
+    public Optional<Rendered> product(Long id, CurrencyCode currency) {
+        CatalogSnapshot catalog = catalogCache.current();
+        Product product = catalog.findById(id);
+        return product == null ? Optional.empty() : Optional.of(renderPriced(catalog, currency, "product:" + id,
+            fx -> priced(List.of(product), fx, currency).get(0)));
+    }
+    
+    @EventListener
+    public void onFxRatesChanged(FxRatesChangedEvent event) {
+        priceLists.clear();
+    }
+    
+    private Rendered render(CatalogSnapshot catalog, String key, Object value) {
+        return catalog.renderedResponses().computeIfAbsent(key, k -> rendered(serialize(value)));
+    }
+    
+    private Rendered renderPriced(CatalogSnapshot catalog, CurrencyCode currency, String response,
+                                  Function<FxRateSnapshot, Object> view) {
+        long seen = priceListCatalogVersion.get();
+        if (catalog.version() > seen && priceListCatalogVersion.compareAndSet(seen, catalog.version())) {
+            priceLists.clear();
+        }
+        
+        FxRateSnapshot fx = currencyConversionService.currentSnapshot();
+        PriceListKey key = new PriceListKey(catalog.version(), fx.version(), currency, response);
+        byte[] body = priceLists.get(key, k -> serialize(view.apply(fx)));
+        
+        MessageDigest digest = sha256();
+        digest.update(render(catalog, "all", catalog.products()).etag().getBytes(StandardCharsets.UTF_8));
+        digest.update((fx.version() + ":" + currency + ":" + response).getBytes(StandardCharsets.UTF_8)); // hashed from the rates
+        return new Rendered(body, etag(digest.digest()));
+    }
+    
+    private static Rendered rendered(byte[] body) {
+        return new Rendered(body, etag(sha256().digest(body)));
+    }
+    
+    private static String etag(byte[] hash) {
+        return '"' + HexFormat.of().formatHex(hash, 0, ETAG_BYTES) + '"';
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Copies with the price converted (bulk, per source currency) and rounded to the currency's minor units
+    private static List<Product> priced(List<Product> products, FxRateSnapshot fx, CurrencyCode currency) {
+        Map<CurrencyCode, List<Integer>> indexesBySource = new LinkedHashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            CurrencyCode source = CurrencyCode.fromCode(products.get(i).getCurrency());
+            indexesBySource.computeIfAbsent(source != null ? source : CurrencyCode.IDR, c -> new ArrayList<>()).add(i);
+        }
+        
+        Product[] priced = new Product[products.size()];
+        indexesBySource.forEach((source, indexes) -> {
+            List<BigDecimal> prices = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                BigDecimal price = products.get(index).getPrice();
+                prices.add(price != null ? price : BigDecimal.ZERO);
+            }
+            List<BigDecimal> converted = fx.convertAll(prices, source, currency);
+            for (int i = 0; i < indexes.size(); i++) {
+                Product product = products.get(indexes.get(i));
+                Product copy = new Product();
+                BeanUtils.copyProperties(product, copy);
+                copy.setPrice(product.getPrice() != null ? currency.round(converted.get(i)) : null);
+                copy.setCurrency(currency.name());
+                priced[indexes.get(i)] = copy;
+            }
+        });
+        return List.of(priced);
+    }
+    
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Product;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, versioned view of the whole product catalog.
+ * A new snapshot is built after every catalog change and swapped in as a whole,
+ * so readers never see a half-updated catalog.
+ * Serialized responses are memoized per snapshot in {@code renderedResponses} and die with it;
+ * keys are bounded by the snapshot's own products and categories.
+ */
+public record CatalogSnapshot(
+        long version,
+        Instant builtAt,
+        List<Product> products,
+        List<Product> activeProducts,
+        Map<Long, Product> productsById,
+        Map<String, List<Product>> productsByCategory,
+        Map<String, CatalogResponseCache.Rendered> renderedResponses) {
+
+    public static CatalogSnapshot of(long version, List<Product> products) {
+        List<Product> active = new ArrayList<>();
+        Map<Long, Product> byId = new LinkedHashMap<>();
+        Map<String, List<Product>> byCategory = new LinkedHashMap<>();
+
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+            byCategory.computeIfAbsent(product.getCategory(), category -> new ArrayList<>()).add(product);
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                active.add(product);
+            }
+        }
+        byCategory.replaceAll((category, list) -> List.copyOf(list));
+
+        return new CatalogSnapshot(
+            version,
+            Instant.now(),
+            List.copyOf(products),
+            List.copyOf(active),
+            Collections.unmodifiableMap(byId),
+            Collections.unmodifiableMap(byCategory),
+            new ConcurrentHashMap<>()
+        );
+    }
+
+    public Product findById(Long id) {
+        return productsById.get(id);
+    }
+
+    public List<Product> findByCategory(String category) {
+        return productsByCategory.getOrDefault(category, List.of());
+    }
+
+    public boolean hasCategory(String category) {
+        return productsByCategory.containsKey(category);
+    }
+}
@@ -0,0 +1,57 @@
+package com.realshyt.fashion.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Immutable cross-rate matrix over {@link CurrencyCode} ordinals, built from rates to IDR.
+ *
+ * Converting is {@code amount * fromRate / toRate}, rounded HALF_UP to 2 decimals. Where
+ * {@code fromRate / toRate} is a terminating decimal (e.g. anything to IDR, IDR to USD) the
+ * exact cross rate is precomputed and a conversion is one multiply and a rescale, which rounds
+ * the same exact quotient and so gives identical results. Other pairs keep multiply-then-divide.
+ */
+final class ConversionMatrix {
+    
+    static final int SCALE = 2;
+    
+    private final BigDecimal[] ratesToIdr;
+    // [from][to] -> exact cross rate, or null when it does not terminate
+    private final BigDecimal[][] exactCrossRates;
+    
+    ConversionMatrix(Map<CurrencyCode, BigDecimal> rates) {
+        CurrencyCode[] currencies = CurrencyCode.values();
+        ratesToIdr = new BigDecimal[currencies.length];
+        for (CurrencyCode currency : currencies) {
+            // Currencies without a rate convert 1:1 to IDR, as unknown codes always have
+            ratesToIdr[currency.ordinal()] = rates.getOrDefault(currency, BigDecimal.ONE);
+        }
+        
+        exactCrossRates = new BigDecimal[currencies.length][currencies.length];
+        for (int from = 0; from < currencies.length; from++) {
+            for (int to = 0; to < currencies.length; to++) {
+                try {
+                    exactCrossRates[from][to] = ratesToIdr[from].divide(ratesToIdr[to]);
+                } catch (ArithmeticException nonTerminating) {
+                    exactCrossRates[from][to] = null;
+                }
+            }
+        }
+    }
+    
+    BigDecimal rateToIdr(CurrencyCode currency) {
+        return ratesToIdr[currency.ordinal()];
+    }
+    
+    BigDecimal convert(BigDecimal amount, CurrencyCode from, CurrencyCode to) {
+        BigDecimal exact = exactCrossRates[from.ordinal()][to.ordinal()];
+        if (exact == null) {
+            return amount.multiply(ratesToIdr[from.ordinal()]).divide(ratesToIdr[to.ordinal()], SCALE, RoundingMode.HALF_UP);
+        }
+        if (exact.compareTo(BigDecimal.ONE) == 0) {
+            return amount.setScale(SCALE, RoundingMode.HALF_UP);
+        }
+        return amount.multiply(exact).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+}
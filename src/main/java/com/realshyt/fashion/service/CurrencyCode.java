@@ -0,0 +1,62 @@
+package com.realshyt.fashion.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Supported currencies with the number of decimals prices are shown with
+ * (JPY and KRW have no minor unit; IDR prices are integral in practice).
+ */
+public enum CurrencyCode {
+    IDR(0),
+    USD(2),
+    EUR(2),
+    GBP(2),
+    SGD(2),
+    MYR(2),
+    AUD(2),
+    JPY(0),
+    CNY(2),
+    HKD(2),
+    KRW(0),
+    THB(2);
+    
+    private static final Map<String, CurrencyCode> BY_CODE = new HashMap<>();
+    
+    static {
+        for (CurrencyCode currency : values()) {
+            BY_CODE.put(currency.name(), currency);
+        }
+    }
+    
+    private final int minorUnits;
+    
+    CurrencyCode(int minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+    
+    public int minorUnits() {
+        return minorUnits;
+    }
+    
+    /**
+     * Round an amount to this currency's minor units
+     */
+    public BigDecimal round(BigDecimal amount) {
+        return amount.setScale(minorUnits, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Case-insensitive lookup
+     * @return the currency, or null if the code is not supported
+     */
+    public static CurrencyCode fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        CurrencyCode currency = BY_CODE.get(code);
+        return currency != null ? currency : BY_CODE.get(code.toUpperCase());
+    }
+}
@@ -1,35 +1,117 @@
 package com.realshyt.fashion.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Currency conversion against the current {@link FxRateSnapshot}.
+ *
+ * Snapshots are immutable and swapped atomically, so readers never lock. With an
+ * {@link FxRateProvider} configured, rates are reloaded on the provider's own thread and an
+ * {@link FxRatesChangedEvent} is published for caches that hold converted prices.
+ */
 @Service
+@Slf4j
 public class CurrencyConversionService {
     
     // Conversion rates to IDR (Indonesian Rupiah) as base currency
-    // These are approximate rates - in production, use a real-time currency API
-    private static final Map<String, BigDecimal> CONVERSION_RATES = new HashMap<>();
+    // Built-in approximate rates, used until an FxRateProvider (fx.provider) supplies live ones
+    private static final Map<CurrencyCode, BigDecimal> CONVERSION_RATES = new EnumMap<>(CurrencyCode.class);
     
     static {
         // Base: IDR (Indonesian Rupiah)
-        CONVERSION_RATES.put("IDR", BigDecimal.ONE); // 1 IDR = 1 IDR
+        CONVERSION_RATES.put(CurrencyCode.IDR, BigDecimal.ONE); // 1 IDR = 1 IDR
         
         // Other currencies to IDR
-        CONVERSION_RATES.put("USD", new BigDecimal("16000"));  // 1 USD ≈ 16,000 IDR
-        CONVERSION_RATES.put("EUR", new BigDecimal("17300"));  // 1 EUR ≈ 17,300 IDR
-        CONVERSION_RATES.put("GBP", new BigDecimal("20200"));  // 1 GBP ≈ 20,200 IDR
-        CONVERSION_RATES.put("SGD", new BigDecimal("11800"));  // 1 SGD ≈ 11,800 IDR
-        CONVERSION_RATES.put("MYR", new BigDecimal("3400"));   // 1 MYR ≈ 3,400 IDR
-        CONVERSION_RATES.put("AUD", new BigDecimal("10500"));  // 1 AUD ≈ 10,500 IDR
-        CONVERSION_RATES.put("JPY", new BigDecimal("105"));     // 1 JPY ≈ 105 IDR
-        CONVERSION_RATES.put("CNY", new BigDecimal("2200"));   // 1 CNY ≈ 2,200 IDR
-        CONVERSION_RATES.put("HKD", new BigDecimal("2050"));   // 1 HKD ≈ 2,050 IDR
-        CONVERSION_RATES.put("KRW", new BigDecimal("12"));      // 1 KRW ≈ 12 IDR
-        CONVERSION_RATES.put("THB", new BigDecimal("450"));    // 1 THB ≈ 450 IDR
+        CONVERSION_RATES.put(CurrencyCode.USD, new BigDecimal("16000"));  // 1 USD ≈ 16,000 IDR
+        CONVERSION_RATES.put(CurrencyCode.EUR, new BigDecimal("17300"));  // 1 EUR ≈ 17,300 IDR
+        CONVERSION_RATES.put(CurrencyCode.GBP, new BigDecimal("20200"));  // 1 GBP ≈ 20,200 IDR
+        CONVERSION_RATES.put(CurrencyCode.SGD, new BigDecimal("11800"));  // 1 SGD ≈ 11,800 IDR
+        CONVERSION_RATES.put(CurrencyCode.MYR, new BigDecimal("3400"));   // 1 MYR ≈ 3,400 IDR
+        CONVERSION_RATES.put(CurrencyCode.AUD, new BigDecimal("10500"));  // 1 AUD ≈ 10,500 IDR
+        CONVERSION_RATES.put(CurrencyCode.JPY, new BigDecimal("105"));     // 1 JPY ≈ 105 IDR
+        CONVERSION_RATES.put(CurrencyCode.CNY, new BigDecimal("2200"));   // 1 CNY ≈ 2,200 IDR
+        CONVERSION_RATES.put(CurrencyCode.HKD, new BigDecimal("2050"));   // 1 HKD ≈ 2,050 IDR
+        CONVERSION_RATES.put(CurrencyCode.KRW, new BigDecimal("12"));      // 1 KRW ≈ 12 IDR
+        CONVERSION_RATES.put(CurrencyCode.THB, new BigDecimal("450"));    // 1 THB ≈ 450 IDR
+    }
+    
+    private final FxRateProvider provider;
+    private final ApplicationEventPublisher events;
+    private final AtomicReference<FxRateSnapshot> snapshot;
+    
+    /**
+     * Built-in rates only
+     */
+    public CurrencyConversionService() {
+        this(Optional.empty(), null);
+    }
+    
+    @Autowired
+    public CurrencyConversionService(Optional<FxRateProvider> provider, ApplicationEventPublisher events) {
+        this.provider = provider.orElse(null);
+        this.events = events;
+        this.snapshot = new AtomicReference<>(new FxRateSnapshot("built-in", CONVERSION_RATES));
+    }
+    
+    /**
+     * Load rates from the configured provider and let it push later changes
+     */
+    @PostConstruct
+    public void startProvider() {
+        if (provider == null) {
+            return;
+        }
+        try {
+            publish(provider.loadRates());
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not load FX rates from {}, using built-in rates: {}", provider.name(), e.getMessage());
+        }
+        provider.watch(this::publish);
+    }
+    
+    @PreDestroy
+    public void stopProvider() {
+        if (provider != null) {
+            provider.close();
+        }
+    }
+    
+    /**
+     * Rates in effect now. Take one snapshot per operation when several conversions must agree.
+     */
+    public FxRateSnapshot currentSnapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * Replace the current snapshot; unchanged rates are ignored.
+     * Runs on the provider's thread, so building the matrix never delays a request.
+     */
+    void publish(Map<CurrencyCode, BigDecimal> rates) {
+        FxRateSnapshot current = snapshot.get();
+        if (current.rates().equals(rates)) {
+            return;
+        }
+        FxRateSnapshot next = new FxRateSnapshot(provider != null ? provider.name() : "manual", rates);
+        snapshot.set(next);
+        log.info("FX rates v{} loaded from {}: {}", next.version(), next.source(), next.rates());
+        if (events != null) {
+            events.publishEvent(new FxRatesChangedEvent(next));
+        }
     }
     
     /**
@@ -40,26 +122,21 @@ public class CurrencyConversionService {
      * @return converted amount
      */
     public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
-        if (fromCurrency == null || toCurrency == null) {
-            return amount; // Return original if currencies are null
-        }
-        
-        if (fromCurrency.equals(toCurrency)) {
-            return amount;
-        }
-        
-        // First convert from source to IDR
-        BigDecimal fromRate = CONVERSION_RATES.getOrDefault(fromCurrency.toUpperCase(), BigDecimal.ONE);
-        BigDecimal toIDR = amount.multiply(fromRate);
-        
-        // Then convert from IDR to target
-        BigDecimal toRate = CONVERSION_RATES.getOrDefault(toCurrency.toUpperCase(), BigDecimal.ONE);
-        
-        if (toRate.equals(BigDecimal.ZERO)) {
-            return amount; // Prevent division by zero
-        }
-        
-        return toIDR.divide(toRate, 2, RoundingMode.HALF_UP);
+        return snapshot.get().convert(amount, fromCurrency, toCurrency);
+    }
+    
+    /**
+     * Convert amount between supported currencies, rounded HALF_UP to 2 decimals
+     */
+    public BigDecimal convert(BigDecimal amount, CurrencyCode from, CurrencyCode to) {
+        return snapshot.get().convert(amount, from, to);
+    }
+    
+    /**
+     * Convert a whole price list in one call; element-wise equal to {@link #convert(BigDecimal, CurrencyCode, CurrencyCode)}
+     */
+    public List<BigDecimal> convertAll(List<BigDecimal> amounts, CurrencyCode from, CurrencyCode to) {
+        return snapshot.get().convertAll(amounts, from, to);
     }
     
     /**
@@ -80,14 +157,14 @@ public class CurrencyConversionService {
      * Get supported currencies
      */
     public String[] getSupportedCurrencies() {
-        return CONVERSION_RATES.keySet().toArray(new String[0]);
+        return snapshot.get().rates().keySet().stream().map(CurrencyCode::name).sorted().toArray(String[]::new);
     }
     
     /**
      * Check if currency is supported
      */
     public boolean isCurrencySupported(String currency) {
-        return CONVERSION_RATES.containsKey(currency.toUpperCase());
+        return CurrencyCode.fromCode(currency) != null;
     }
     
     /**
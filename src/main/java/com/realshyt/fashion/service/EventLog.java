@@ -0,0 +1,269 @@
+package com.realshyt.fashion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured order and payment lifecycle events, one JSON object per line in {@code events.log.path}.
+ *
+ * Publishing copies the event into a lock-free ring ({@link EventRingBuffer}) and returns; a
+ * single writer thread renders drained events into a reused buffer and appends them to a rolling
+ * file ({@link RollingEventFile}) in batches. When the ring is full, {@code events.log.overflow}
+ * decides: DROP discards the event, BLOCK makes the caller wait up to
+ * {@code events.log.block-timeout} for space and then discards it. Queue depth, drops and waits
+ * are exported as {@code events.log.*} metrics.
+ */
+@Component
+@Slf4j
+public class EventLog {
+    
+    public enum EventType {
+        ORDER_CREATED("order.created"),
+        ORDER_CANCELLED("order.cancelled"),
+        ORDER_EXPIRED("order.expired"),
+        PAYMENT_CREATED("payment.created"),
+        PAYMENT_FAILED("payment.failed"),
+        PAYMENT_STATUS_CHANGED("payment.status_changed");
+        
+        private final String label;
+        
+        EventType(String label) {
+            this.label = label;
+        }
+        
+        public String label() {
+            return label;
+        }
+    }
+    
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+    
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    private final boolean enabled;
+    private final Path path;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final EventRingBuffer ring;
+    
+    private final Counter written;
+    private final Counter droppedFull;
+    private final Counter droppedTimeout;
+    private final Counter droppedWriteError;
+    private final Counter blocked;
+    
+    // Writer thread state
+    private final StringBuilder lines = new StringBuilder(64 * 1024);
+    private final EventRingBuffer.Consumer renderer = this::render;
+    private RollingEventFile file;
+    private Thread writer;
+    private volatile boolean running;
+    
+    public EventLog(@Value("${events.log.enabled:true}") boolean enabled,
+                    @Value("${events.log.path:logs/events.log}") Path path,
+                    @Value("${events.log.capacity:8192}") int capacity,
+                    @Value("${events.log.overflow:DROP}") OverflowPolicy overflowPolicy,
+                    @Value("${events.log.block-timeout:5ms}") Duration blockTimeout,
+                    @Value("${events.log.max-file-size:64MB}") DataSize maxFileSize,
+                    @Value("${events.log.max-history:5}") int maxHistory,
+                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.path = path;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxHistory = maxHistory;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.ring = new EventRingBuffer(capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+        
+        Gauge.builder("events.log.queue.size", ring, EventRingBuffer::size)
+            .description("Events waiting for the writer thread")
+            .register(meterRegistry);
+        this.written = Counter.builder("events.log.written")
+            .description("Events appended to the event log")
+            .register(meterRegistry);
+        this.droppedFull = dropped(meterRegistry, "queue_full");
+        this.droppedTimeout = dropped(meterRegistry, "block_timeout");
+        this.droppedWriteError = dropped(meterRegistry, "write_error");
+        this.blocked = Counter.builder("events.log.blocked")
+            .description("Publishes that had to wait for space in the queue (BLOCK policy)")
+            .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        file = new RollingEventFile(path, maxFileSize, maxHistory, 256 * 1024);
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("event-log-writer").start(this::writeLoop);
+    }
+    
+    /**
+     * Stop the writer thread once everything still queued is written
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    /**
+     * Queue an event; ids, status, amount and detail are optional
+     */
+    public void publish(EventType type, Long orderId, Long paymentId, String status,
+                        BigDecimal amount, String currency, String detail) {
+        if (!enabled) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        String traceId = MDC.get("traceId");
+        long order = orderId != null ? orderId : 0;
+        long payment = paymentId != null ? paymentId : 0;
+        if (ring.offer(timestamp, type, order, payment, status, amount, currency, detail, traceId)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            droppedFull.increment();
+            return;
+        }
+        
+        blocked.increment();
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (ring.offer(timestamp, type, order, payment, status, amount, currency, detail, traceId)) {
+                return;
+            }
+        }
+        droppedTimeout.increment();
+    }
+    
+    /**
+     * Publish once the surrounding transaction commits, so rolled-back work is never logged
+     */
+    public void publishAfterCommit(EventType type, Long orderId, Long paymentId, String status,
+                                   BigDecimal amount, String currency, String detail) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(type, orderId, paymentId, status, amount, currency, detail);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(type, orderId, paymentId, status, amount, currency, detail);
+            }
+        });
+    }
+    
+    private void writeLoop() {
+        boolean draining = true;
+        while (draining) {
+            boolean stopping = !running;
+            int drained = ring.drain(renderer, BATCH_SIZE);
+            try {
+                if (drained > 0) {
+                    file.append(lines);
+                    written.increment(drained);
+                }
+                if (drained < BATCH_SIZE) {
+                    file.flush();
+                }
+            } catch (IOException e) {
+                droppedWriteError.increment(drained);
+                log.error("Could not write to event log {}: {}", path, e.getMessage());
+            } finally {
+                lines.setLength(0);
+            }
+            if (drained == 0) {
+                draining = !stopping; // one last pass after stop() so nothing queued is lost
+                if (draining) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.error("Could not close event log {}: {}", path, e.getMessage());
+        }
+    }
+    
+    private void render(EventRingBuffer.Event event) {
+        StringBuilder line = lines;
+        line.append("{\"ts\":").append(event.timestamp)
+            .append(",\"event\":\"").append(event.type.label()).append('"');
+        if (event.orderId != 0) {
+            line.append(",\"orderId\":").append(event.orderId);
+        }
+        if (event.paymentId != 0) {
+            line.append(",\"paymentId\":").append(event.paymentId);
+        }
+        appendString(line, "status", event.status);
+        if (event.amount != null) {
+            line.append(",\"amount\":").append(event.amount.toPlainString());
+        }
+        appendString(line, "currency", event.currency);
+        appendString(line, "detail", event.detail);
+        appendString(line, "traceId", event.traceId);
+        line.append("}\n");
+    }
+    
+    private static void appendString(StringBuilder line, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+    
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("events.log.dropped")
+            .description("Events discarded by the overflow policy or a failed write")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
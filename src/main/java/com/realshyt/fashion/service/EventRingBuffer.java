@@ -0,0 +1,120 @@
+package com.realshyt.fashion.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring of preallocated event slots.
+ *
+ * Producers claim a slot with one CAS on the tail, copy the event fields into it and publish it
+ * through the slot's sequence number; nothing is allocated per event. The single consumer reads
+ * published slots in order and hands them back by advancing their sequence one lap. When the ring
+ * is full {@link #offer} fails immediately, leaving the overflow policy to the caller.
+ */
+final class EventRingBuffer {
+    
+    /**
+     * One reusable slot; only valid inside {@link Consumer#accept}
+     */
+    static final class Event {
+        long timestamp;
+        EventLog.EventType type;
+        long orderId;
+        long paymentId;
+        String status;
+        BigDecimal amount;
+        String currency;
+        String detail;
+        String traceId;
+    }
+    
+    @FunctionalInterface
+    interface Consumer {
+        void accept(Event event);
+    }
+    
+    private final Event[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // written by the consumer only
+    
+    EventRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Event();
+            sequences.set(i, i);
+        }
+    }
+    
+    boolean offer(long timestamp, EventLog.EventType type, long orderId, long paymentId, String status,
+                  BigDecimal amount, String currency, String detail, String traceId) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Event event = slots[index];
+                    event.timestamp = timestamp;
+                    event.type = type;
+                    event.orderId = orderId;
+                    event.paymentId = paymentId;
+                    event.status = status;
+                    event.amount = amount;
+                    event.currency = currency;
+                    event.detail = detail;
+                    event.traceId = traceId;
+                    sequences.set(index, position + 1); // publish
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false; // full: the slot still holds an event from the previous lap
+            } else {
+                position = tail.get(); // another producer claimed this slot
+            }
+        }
+    }
+    
+    /**
+     * Hand up to {@code max} published events to the consumer, oldest first
+     * @return number of events drained
+     */
+    int drain(Consumer consumer, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break; // not published yet
+            }
+            Event event = slots[index];
+            consumer.accept(event);
+            event.status = null;
+            event.amount = null;
+            event.currency = null;
+            event.detail = null;
+            event.traceId = null;
+            sequences.set(index, position + slots.length); // free for the next lap
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+    
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+    
+    int capacity() {
+        return slots.length;
+    }
+}
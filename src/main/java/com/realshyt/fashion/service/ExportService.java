@@ -0,0 +1,72 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.realshyt.fashion.dto.OrderExportRow;
+import com.realshyt.fashion.dto.PaymentExportRow;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes orders and payments as newline-delimited JSON straight from a database cursor.
+ * Rows are flat projections read forward-only, so memory use stays constant however many rows match.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ExportService {
+    
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+    
+    public long exportOrders(OutputStream out, LocalDateTime from, LocalDateTime to, Order.OrderStatus status) {
+        try (Stream<OrderExportRow> rows = orderRepository.streamForExport(from, to, status)) {
+            return writeNdjson(out, rows);
+        }
+    }
+    
+    public long exportPayments(OutputStream out, LocalDateTime from, LocalDateTime to, Payment.PaymentStatus status) {
+        try (Stream<PaymentExportRow> rows = paymentRepository.streamForExport(from, to, status)) {
+            return writeNdjson(out, rows);
+        }
+    }
+    
+    // Pulls one row at a time from the stream and writes it before pulling the next
+    long writeNdjson(OutputStream out, Stream<?> rows) {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+            }
+            writer.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Exported {} rows", count);
+        return count;
+    }
+}
@@ -0,0 +1,101 @@
+package com.realshyt.fashion.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Reads rates from a properties file ({@code USD=16000}) and reloads it when the file changes,
+ * using a {@link WatchService} on its directory from a daemon thread.
+ */
+@Component
+@ConditionalOnProperty(name = "fx.provider", havingValue = "file")
+@Slf4j
+public class FileFxRateProvider implements FxRateProvider {
+    
+    private final Path path;
+    private WatchService watchService;
+    private Thread watcher;
+    
+    public FileFxRateProvider(@Value("${fx.file.path:config/fx-rates.properties}") Path path) {
+        this.path = path.toAbsolutePath();
+    }
+    
+    @Override
+    public String name() {
+        return "file:" + path;
+    }
+    
+    @Override
+    public Map<CurrencyCode, BigDecimal> loadRates() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return FxRateProvider.parseRates(properties);
+    }
+    
+    @Override
+    public void watch(Consumer<Map<CurrencyCode, BigDecimal>> listener) {
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot watch " + path, e);
+        }
+        watcher = Thread.ofPlatform().daemon().name("fx-rate-watcher").start(() -> watchLoop(listener));
+    }
+    
+    private void watchLoop(Consumer<Map<CurrencyCode, BigDecimal>> listener) {
+        Path fileName = path.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream().anyMatch(event -> fileName.equals(event.context()));
+                key.reset();
+                if (changed) {
+                    reload(listener);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Stopped watching {}", path);
+        }
+    }
+    
+    private void reload(Consumer<Map<CurrencyCode, BigDecimal>> listener) {
+        try {
+            listener.accept(loadRates());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring FX rate file update, keeping current rates: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void close() {
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            log.debug("Error closing watch service: {}", e.getMessage());
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+}
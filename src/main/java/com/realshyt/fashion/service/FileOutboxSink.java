@@ -0,0 +1,62 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends outbox events as JSON lines to a local file, forced to disk before the batch is marked delivered.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+    
+    private final Path path;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    public FileOutboxSink(@Value("${outbox.file.path:logs/outbox.jsonl}") Path path) {
+        this.path = path;
+    }
+    
+    @Override
+    public String name() {
+        return "file:" + path;
+    }
+    
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        for (OutboxEvent event : events) {
+            lines.append(OutboxSink.toJson(event)).append('\n');
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(lines.toString());
+        
+        writeLock.lock();
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.realshyt.fashion.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Source of rates to IDR for {@link CurrencyConversionService}.
+ *
+ * The service loads the rates once at startup and then calls {@link #watch} so the provider can
+ * push updates from its own thread; request threads never wait for a reload.
+ * Select an implementation with {@code fx.provider} (file or http); without one the built-in rates are used.
+ */
+public interface FxRateProvider {
+    
+    /**
+     * Short description for logs and {@link FxRateSnapshot#source()}
+     */
+    String name();
+    
+    Map<CurrencyCode, BigDecimal> loadRates() throws IOException;
+    
+    /**
+     * Start watching for changes and pass every new set of rates to the listener
+     */
+    void watch(Consumer<Map<CurrencyCode, BigDecimal>> listener);
+    
+    default void close() {
+    }
+    
+    /**
+     * Validate raw code -> rate pairs. Every supported currency except IDR (always 1) must be
+     * present, so a half-written file or truncated response is rejected instead of applied.
+     */
+    static Map<CurrencyCode, BigDecimal> parseRates(Map<?, ?> raw) {
+        Map<CurrencyCode, BigDecimal> rates = new EnumMap<>(CurrencyCode.class);
+        raw.forEach((code, value) -> {
+            CurrencyCode currency = CurrencyCode.fromCode(String.valueOf(code).trim());
+            if (currency == null) {
+                return; // not a currency we sell in
+            }
+            BigDecimal rate;
+            try {
+                rate = new BigDecimal(String.valueOf(value).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rate for " + currency + ": " + value);
+            }
+            if (rate.signum() <= 0) {
+                throw new IllegalArgumentException("Rate for " + currency + " must be positive: " + value);
+            }
+            rates.put(currency, rate);
+        });
+        rates.put(CurrencyCode.IDR, BigDecimal.ONE);
+        for (CurrencyCode currency : CurrencyCode.values()) {
+            if (!rates.containsKey(currency)) {
+                throw new IllegalArgumentException("Missing rate for " + currency);
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,110 @@
+package com.realshyt.fashion.service;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned set of rates to IDR with its precomputed {@link ConversionMatrix}.
+ * Conversions done against one snapshot are consistent with each other even if rates change meanwhile.
+ *
+ * The version is a hash of the rates themselves, so the same rates get the same version on every
+ * instance and after restarts, and a stored version always names one set of rates.
+ */
+public final class FxRateSnapshot {
+    
+    private final long version;
+    private final Instant loadedAt;
+    private final String source;
+    private final Map<CurrencyCode, BigDecimal> rates;
+    private final ConversionMatrix matrix;
+    
+    FxRateSnapshot(String source, Map<CurrencyCode, BigDecimal> rates) {
+        this.version = versionOf(rates);
+        this.loadedAt = Instant.now();
+        this.source = source;
+        this.rates = Map.copyOf(new EnumMap<>(rates));
+        this.matrix = new ConversionMatrix(rates);
+    }
+    
+    public long version() {
+        return version;
+    }
+    
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+    
+    public String source() {
+        return source;
+    }
+    
+    public Map<CurrencyCode, BigDecimal> rates() {
+        return rates;
+    }
+    
+    /**
+     * Rate to IDR for a currency code; unsupported codes convert 1:1
+     */
+    public BigDecimal rateToIdr(String currency) {
+        return matrix.rateToIdr(resolve(currency));
+    }
+    
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency == null || toCurrency == null) {
+            return amount; // Return original if currencies are null
+        }
+        
+        if (fromCurrency.equals(toCurrency)) {
+            return amount;
+        }
+        
+        return matrix.convert(amount, resolve(fromCurrency), resolve(toCurrency));
+    }
+    
+    public BigDecimal convert(BigDecimal amount, CurrencyCode from, CurrencyCode to) {
+        return from == to ? amount : matrix.convert(amount, from, to);
+    }
+    
+    public List<BigDecimal> convertAll(List<BigDecimal> amounts, CurrencyCode from, CurrencyCode to) {
+        if (from == to) {
+            return List.copyOf(amounts);
+        }
+        BigDecimal[] converted = new BigDecimal[amounts.size()];
+        for (int i = 0; i < converted.length; i++) {
+            converted[i] = matrix.convert(amounts.get(i), from, to);
+        }
+        return List.of(converted);
+    }
+    
+    /**
+     * Content version of a set of rates: the first 63 bits of a SHA-256 over the rates in currency order,
+     * ignoring trailing zeros, so 16000 and 16000.00 are the same rate
+     */
+    static long versionOf(Map<CurrencyCode, BigDecimal> rates) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (CurrencyCode code : CurrencyCode.values()) {
+            BigDecimal rate = rates.get(code);
+            String entry = code + "=" + (rate != null ? rate.stripTrailingZeros().toPlainString() : "") + ";";
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong() & Long.MAX_VALUE;
+    }
+    
+    // Unsupported codes convert at 1:1 to IDR
+    private static CurrencyCode resolve(String currency) {
+        CurrencyCode code = CurrencyCode.fromCode(currency);
+        return code != null ? code : CurrencyCode.IDR;
+    }
+}
@@ -0,0 +1,7 @@
+package com.realshyt.fashion.service;
+
+/**
+ * Published after a new FX rate snapshot replaced the previous one
+ */
+public record FxRatesChangedEvent(FxRateSnapshot snapshot) {
+}
@@ -0,0 +1,236 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.IdempotencyRecord;
+import com.realshyt.fashion.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Idempotency-Key store.
+ *
+ * Completed responses are kept in the {@code idempotency_keys} table until their TTL passes,
+ * with the most recent ones also held in a bounded in-memory LRU so most replays never touch the
+ * database. Concurrent duplicates in this instance wait for the first request's outcome; across
+ * instances the primary key on the table lets only one request claim a key, and others get
+ * {@link Outcome#IN_PROGRESS} until it completes.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    public enum Outcome {
+        /** Run the request, then call {@link #complete} or {@link #release} */
+        EXECUTE,
+        /** Return {@link Claim#response()} */
+        REPLAY,
+        /** The key was used for a different request body */
+        MISMATCH,
+        /** Another instance is still running the request */
+        IN_PROGRESS
+    }
+    
+    public record StoredResponse(String requestHash, int status, String contentType, byte[] body, LocalDateTime expiresAt) {
+    }
+    
+    public record Claim(Outcome outcome, StoredResponse response) {
+    }
+    
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Duration waitTimeout;
+    private final int maxMemoryEntries;
+    
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, StoredResponse> recent = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock recentLock = new ReentrantLock();
+    
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.in-progress-timeout:5m}") Duration inProgressTimeout,
+                              @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout,
+                              @Value("${idempotency.memory.max-entries:10000}") int maxMemoryEntries) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.waitTimeout = waitTimeout;
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+    
+    /**
+     * Decide how to handle a request carrying an idempotency key.
+     * Blocks (up to {@code idempotency.wait-timeout}) while another thread of this instance runs the same key.
+     */
+    public Claim claim(String key, String requestHash) {
+        while (true) {
+            StoredResponse cached = recent(key);
+            if (cached != null) {
+                return replay(cached, requestHash);
+            }
+            
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                StoredResponse outcome;
+                try {
+                    outcome = running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    return new Claim(Outcome.IN_PROGRESS, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new Claim(Outcome.IN_PROGRESS, null);
+                } catch (ExecutionException e) {
+                    continue;
+                }
+                if (outcome != null) {
+                    return replay(outcome, requestHash);
+                }
+                continue; // the first request failed; try to claim the key again
+            }
+            
+            Claim claim;
+            try {
+                claim = claimInDatabase(key, requestHash);
+            } catch (RuntimeException e) {
+                finish(key, null);
+                throw e;
+            }
+            if (claim.outcome() != Outcome.EXECUTE) {
+                finish(key, claim.response());
+            }
+            return claim;
+        }
+    }
+    
+    /**
+     * Store the response of a claimed request and hand it to waiting duplicates
+     */
+    public void complete(String key, String requestHash, int status, String contentType, byte[] body) {
+        StoredResponse response = new StoredResponse(requestHash, status, contentType, body, LocalDateTime.now().plus(ttl));
+        try {
+            transactionTemplate.executeWithoutResult(tx -> repository.findById(key).ifPresent(record -> {
+                record.setStatus(IdempotencyRecord.RecordStatus.COMPLETED);
+                record.setResponseStatus(status);
+                record.setContentType(contentType);
+                record.setResponseBody(body);
+                record.setExpiresAt(response.expiresAt());
+            }));
+            remember(key, response);
+        } finally {
+            finish(key, response);
+        }
+    }
+    
+    /**
+     * Give up a claim (the request failed) so a retry can run it again
+     */
+    public void release(String key) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> repository.deleteById(key));
+        } finally {
+            finish(key, null);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(tx -> repository.deleteExpired(LocalDateTime.now()));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+        recentLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            recent.values().removeIf(response -> response.expiresAt().isBefore(now));
+        } finally {
+            recentLock.unlock();
+        }
+    }
+    
+    private Claim claimInDatabase(String key, String requestHash) {
+        try {
+            return transactionTemplate.execute(tx -> {
+                IdempotencyRecord existing = repository.findById(key).orElse(null);
+                if (existing != null && existing.getExpiresAt().isAfter(LocalDateTime.now())) {
+                    if (existing.getStatus() == IdempotencyRecord.RecordStatus.IN_PROGRESS) {
+                        return new Claim(Outcome.IN_PROGRESS, null);
+                    }
+                    StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponseStatus(),
+                        existing.getContentType(), existing.getResponseBody(), existing.getExpiresAt());
+                    remember(key, stored);
+                    return replay(stored, requestHash);
+                }
+                if (existing != null) {
+                    repository.delete(existing);
+                    repository.flush();
+                }
+                
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setIdempotencyKey(key);
+                record.setRequestHash(requestHash);
+                record.setExpiresAt(LocalDateTime.now().plus(inProgressTimeout));
+                repository.saveAndFlush(record);
+                return new Claim(Outcome.EXECUTE, null);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return new Claim(Outcome.IN_PROGRESS, null); // another instance claimed it first
+        }
+    }
+    
+    private static Claim replay(StoredResponse response, String requestHash) {
+        return response.requestHash().equals(requestHash)
+            ? new Claim(Outcome.REPLAY, response)
+            : new Claim(Outcome.MISMATCH, null);
+    }
+    
+    private void finish(String key, StoredResponse response) {
+        CompletableFuture<StoredResponse> running = inFlight.remove(key);
+        if (running != null) {
+            running.complete(response);
+        }
+    }
+    
+    private StoredResponse recent(String key) {
+        recentLock.lock();
+        try {
+            StoredResponse response = recent.get(key);
+            if (response != null && response.expiresAt().isBefore(LocalDateTime.now())) {
+                recent.remove(key);
+                return null;
+            }
+            return response;
+        } finally {
+            recentLock.unlock();
+        }
+    }
+    
+    private void remember(String key, StoredResponse response) {
+        recentLock.lock();
+        try {
+            recent.put(key, response);
+            if (recent.size() > maxMemoryEntries) {
+                recent.remove(recent.keySet().iterator().next());
+            }
+        } finally {
+            recentLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.realshyt.fashion.service;
+
+/**
+ * Thrown when a stock reservation can't be satisfied.
+ * The surrounding transaction rolls back, so no partial reservation is kept.
+ */
+public class InsufficientStockException extends RuntimeException {
+    
+    private final Long productId;
+    
+    public InsufficientStockException(Long productId, int requested) {
+        super("Insufficient stock for product " + productId + " (requested " + requested + ")");
+        this.productId = productId;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Stock reservations backed by conditional decrements in the database.
+ * Stock is changed with JDBC batches that bypass the persistence context, so
+ * managed {@link com.realshyt.fashion.entity.Product} instances keep the quantity they were loaded with.
+ * 
+ * A reservation is taken with {@link #reserve} inside the order transaction and becomes
+ * permanent when that transaction commits; if any line can't be reserved the whole
+ * transaction rolls back. {@link #release} gives reserved stock back, e.g. on cancellation.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class InventoryService {
+    
+    private static final String DECREMENT_SQL =
+        "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    
+    private static final String INCREMENT_SQL =
+        "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogCache catalogCache;
+    
+    /**
+     * Reserve stock for all given quantities, or fail with {@link InsufficientStockException}.
+     * All lines go to the database as one JDBC batch.
+     */
+    public void reserve(SortedMap<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // Products are always updated in id order so concurrent checkouts lock rows in the same order
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue());
+        })[0];
+        
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new InsufficientStockException(lines.get(i).getKey(), lines.get(i).getValue());
+            }
+        }
+        catalogCache.invalidateStockAfterCommit();
+    }
+    
+    /**
+     * Return previously reserved stock in one JDBC batch
+     */
+    public void release(SortedMap<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, new ArrayList<>(quantities.entrySet()), quantities.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+        });
+        catalogCache.invalidateStockAfterCommit();
+    }
+    
+    /**
+     * Sum the quantities of the given items per product, ordered by product id
+     */
+    public static SortedMap<Long, Integer> quantitiesOf(Collection<OrderItem> items) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for product " + item.getProduct().getId());
+            }
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
\ No newline at end of file
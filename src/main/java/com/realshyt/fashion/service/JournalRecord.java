@@ -0,0 +1,106 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * View of one {@link PaymentJournal} record, decoded on access straight from the mapped segment.
+ *
+ * During {@link PaymentJournal#replay} a single instance is re-pointed at every record, so replay
+ * allocates nothing unless a handler asks for the string fields; don't keep a reference to it
+ * after the handler returns.
+ *
+ * Payload layout (big-endian): timestamp(8) type(1) orderId(8) paymentId(8) paymentStatus(1)
+ * orderStatus(1) amountUnscaled(8) amountScale(1) midtransOrderId(2 + n) detail(2 + n).
+ * Statuses are stored as ordinal + 1 (0 = none), so new enum constants must be added at the end.
+ */
+public final class JournalRecord {
+    
+    static final int TYPE = 8;
+    static final int ORDER_ID = 9;
+    static final int PAYMENT_ID = 17;
+    static final int PAYMENT_STATUS = 25;
+    static final int ORDER_STATUS = 26;
+    static final int AMOUNT = 27;
+    static final int AMOUNT_SCALE = 35;
+    static final int MIDTRANS_ORDER_ID = 36;
+    static final int FIXED_LENGTH = MIDTRANS_ORDER_ID + 4;
+    
+    private static final PaymentJournal.RecordType[] TYPES = PaymentJournal.RecordType.values();
+    private static final Payment.PaymentStatus[] PAYMENT_STATUSES = Payment.PaymentStatus.values();
+    private static final Order.OrderStatus[] ORDER_STATUSES = Order.OrderStatus.values();
+    
+    private ByteBuffer buffer;
+    private int offset;
+    
+    JournalRecord wrap(ByteBuffer buffer, int payloadOffset) {
+        this.buffer = buffer;
+        this.offset = payloadOffset;
+        return this;
+    }
+    
+    public long timestamp() {
+        return buffer.getLong(offset);
+    }
+    
+    public PaymentJournal.RecordType type() {
+        return TYPES[buffer.get(offset + TYPE)];
+    }
+    
+    public long orderId() {
+        return buffer.getLong(offset + ORDER_ID);
+    }
+    
+    /**
+     * @return payment id, or 0 for order-only records
+     */
+    public long paymentId() {
+        return buffer.getLong(offset + PAYMENT_ID);
+    }
+    
+    public Payment.PaymentStatus paymentStatus() {
+        int status = buffer.get(offset + PAYMENT_STATUS);
+        return status == 0 ? null : PAYMENT_STATUSES[status - 1];
+    }
+    
+    public Order.OrderStatus orderStatus() {
+        int status = buffer.get(offset + ORDER_STATUS);
+        return status == 0 ? null : ORDER_STATUSES[status - 1];
+    }
+    
+    public BigDecimal amount() {
+        int scale = buffer.get(offset + AMOUNT_SCALE);
+        long unscaled = buffer.getLong(offset + AMOUNT);
+        return scale < 0 ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+    
+    public String midtransOrderId() {
+        return string(offset + MIDTRANS_ORDER_ID);
+    }
+    
+    public String detail() {
+        int idLength = Short.toUnsignedInt(buffer.getShort(offset + MIDTRANS_ORDER_ID));
+        return string(offset + MIDTRANS_ORDER_ID + 2 + idLength);
+    }
+    
+    @Override
+    public String toString() {
+        return type() + " order=" + orderId() + " payment=" + paymentId() + " paymentStatus=" + paymentStatus()
+            + " orderStatus=" + orderStatus() + " amount=" + amount() + " midtransOrderId=" + midtransOrderId()
+            + " detail=" + detail();
+    }
+    
+    private String string(int position) {
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,125 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.dto.MidtransNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Verifies Midtrans notification signatures: SHA512(order_id + status_code + gross_amount + server_key).
+ *
+ * The digest input is written into a reused buffer, the expected signature is hex-decoded once
+ * and the two digests are compared in constant time. Digest and buffers come from a small pool
+ * rather than a ThreadLocal so virtual threads (one per request) reuse them too; the hot path
+ * allocates nothing unless the pool is empty or a field contains non-ASCII characters.
+ */
+@Component
+public class MidtransSignatureVerifier {
+    
+    private static final int SHA512_LENGTH = 64;
+    
+    private final byte[] serverKey;
+    private final BlockingQueue<Scratch> pool = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    
+    public MidtransSignatureVerifier(@Value("${midtrans.server-key:SB-Mid-server-YOUR_SERVER_KEY}") String serverKey) {
+        this.serverKey = serverKey.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    public boolean verify(MidtransNotification notification) {
+        return verify(notification.getOrder_id(), notification.getStatus_code(),
+            notification.getGross_amount(), notification.getSignature_key());
+    }
+    
+    public boolean verify(String orderId, String statusCode, String grossAmount, String signature) {
+        if (signature == null || signature.length() != SHA512_LENGTH * 2) {
+            return false;
+        }
+        
+        Scratch scratch = pool.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        try {
+            if (!decodeHex(signature, scratch.expected)) {
+                return false;
+            }
+            
+            // Same concatenation as before, including "null" for missing fields
+            scratch.length = 0;
+            scratch.append(String.valueOf(orderId));
+            scratch.append(String.valueOf(statusCode));
+            scratch.append(String.valueOf(grossAmount));
+            scratch.append(serverKey);
+            
+            scratch.digest.update(scratch.input, 0, scratch.length);
+            scratch.digest.digest(scratch.actual, 0, SHA512_LENGTH);
+            return MessageDigest.isEqual(scratch.expected, scratch.actual);
+        } catch (DigestException e) {
+            scratch.digest.reset();
+            return false;
+        } finally {
+            pool.offer(scratch);
+        }
+    }
+    
+    private static boolean decodeHex(String hex, byte[] out) {
+        for (int i = 0; i < out.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            out[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+    
+    private static final class Scratch {
+        
+        private final MessageDigest digest;
+        private final byte[] expected = new byte[SHA512_LENGTH];
+        private final byte[] actual = new byte[SHA512_LENGTH];
+        private byte[] input = new byte[256];
+        private int length;
+        
+        private Scratch() {
+            try {
+                digest = MessageDigest.getInstance("SHA-512");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-512 not available", e);
+            }
+        }
+        
+        private void append(String value) {
+            int end = value.length();
+            ensureCapacity(end);
+            for (int i = 0; i < end; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    append(value.substring(i).getBytes(StandardCharsets.UTF_8)); // rare: encode the rest
+                    return;
+                }
+                input[length++] = (byte) c;
+            }
+        }
+        
+        private void append(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, input, length, bytes.length);
+            length += bytes.length;
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (length + extra > input.length) {
+                input = Arrays.copyOf(input, Math.max(input.length * 2, length + extra));
+            }
+        }
+    }
+}
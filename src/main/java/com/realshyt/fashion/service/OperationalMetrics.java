@@ -0,0 +1,73 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauges for checkout capacity: units reserved by unpaid orders, orders waiting for payment and
+ * database pool saturation.
+ *
+ * The order gauges are refreshed on a schedule rather than queried on every scrape, so scrapes
+ * never add load to the database; they lag by at most {@code metrics.gauges.refresh-interval-ms}.
+ */
+@Component
+@Slf4j
+public class OperationalMetrics {
+    
+    private final OrderRepository orderRepository;
+    private final AtomicLong reservedUnits = new AtomicLong();
+    private final AtomicLong pendingPaymentOrders = new AtomicLong();
+    
+    public OperationalMetrics(OrderRepository orderRepository, DataSource dataSource, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        
+        Gauge.builder("inventory.reserved.units", reservedUnits, AtomicLong::get)
+            .description("Units held by orders that are not paid or cancelled yet")
+            .register(meterRegistry);
+        Gauge.builder("orders.pending_payment", pendingPaymentOrders, AtomicLong::get)
+            .description("Orders waiting for a Midtrans payment")
+            .register(meterRegistry);
+        
+        HikariDataSource hikari = unwrapHikari(dataSource);
+        if (hikari != null) {
+            Gauge.builder("db.pool.saturation", hikari, OperationalMetrics::saturation)
+                .description("Connections in use or awaited, as a fraction of the pool size (above 1 means threads are queueing)")
+                .register(meterRegistry);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${metrics.gauges.refresh-interval-ms:15000}")
+    public void refresh() {
+        reservedUnits.set(orderRepository.sumQuantityByOrderStatusIn(ReservationExpiryService.HOLDING_STOCK));
+        pendingPaymentOrders.set(orderRepository.countByStatus(Order.OrderStatus.PENDING_PAYMENT));
+    }
+    
+    private static double saturation(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return 0; // pool not started yet
+        }
+        return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection())
+            / dataSource.getMaximumPoolSize();
+    }
+    
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            log.warn("Could not inspect the connection pool: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,15 +1,31 @@
 package com.realshyt.fashion.service;
 
+import com.realshyt.fashion.dto.CursorPage;
+import com.realshyt.fashion.dto.OrderResponse;
 import com.realshyt.fashion.entity.Order;
 import com.realshyt.fashion.entity.OrderItem;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.entity.Product;
 import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
 import com.realshyt.fashion.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -18,67 +34,150 @@ public class OrderService {
     
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final PaymentRepository paymentRepository;
+    private final InventoryService inventoryService;
+    private final MeterRegistry meterRegistry;
+    private final EventLog eventLog;
+    private final PaymentJournal paymentJournal;
+    private final OutboxService outboxService;
     
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public CursorPage<OrderResponse> getOrders(String cursor, int limit) {
+        Pageable page = PageRequest.of(0, limit + 1);
+        OrderCursor after = OrderCursor.decode(cursor);
+        List<Order> orders = after == null
+            ? orderRepository.findPage(page)
+            : orderRepository.findPageAfter(after.createdAt(), after.id(), page);
+        return toPage(orders, limit);
     }
     
-    public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+    public Optional<OrderResponse> getOrderById(Long id) {
+        return orderRepository.findWithItemsById(id).map(OrderResponse::from);
     }
     
-    public List<Order> getOrdersByEmail(String email) {
-        return orderRepository.findByCustomerEmailOrderByCreatedAtDesc(email);
+    public CursorPage<OrderResponse> getOrdersByEmail(String email, String cursor, int limit) {
+        Pageable page = PageRequest.of(0, limit + 1);
+        OrderCursor after = OrderCursor.decode(cursor);
+        List<Order> orders = after == null
+            ? orderRepository.findPageByCustomerEmail(email, page)
+            : orderRepository.findPageByCustomerEmailAfter(email, after.createdAt(), after.id(), page);
+        return toPage(orders, limit);
     }
     
-    public List<Order> getOrdersByStatus(Order.OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public CursorPage<OrderResponse> getOrdersByStatus(Order.OrderStatus status, String cursor, int limit) {
+        Pageable page = PageRequest.of(0, limit + 1);
+        OrderCursor after = OrderCursor.decode(cursor);
+        List<Order> orders = after == null
+            ? orderRepository.findPageByStatus(status, page)
+            : orderRepository.findPageByStatusAfter(status, after.createdAt(), after.id(), page);
+        return toPage(orders, limit);
+    }
+    
+    // One extra row is fetched to tell whether another page follows
+    private CursorPage<OrderResponse> toPage(List<Order> orders, int limit) {
+        List<Order> page = orders.size() > limit ? orders.subList(0, limit) : orders;
+        
+        // Items and products for the whole page come from one fetch-join query
+        Map<Long, Order> withItems = orderRepository.findWithItemsByIdIn(page.stream().map(Order::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<OrderResponse> items = page.stream()
+            .map(order -> OrderResponse.from(withItems.getOrDefault(order.getId(), order)))
+            .toList();
+        
+        if (orders.size() <= limit) {
+            return new CursorPage<>(items, null);
+        }
+        Order last = page.get(limit - 1);
+        return new CursorPage<>(items, new OrderCursor(last.getCreatedAt(), last.getId()).encode());
     }
     
     public Order createOrder(Order order) {
+        timeUntilCompletion("orders.create", "Checkouts, including the commit that flushes the batched inserts");
+        
+        // Load every referenced product with one query
+        Set<Long> productIds = order.getOrderItems().stream()
+            .map(item -> item.getProduct().getId())
+            .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
         // Calculate total amount
         BigDecimal totalAmount = BigDecimal.ZERO;
         
         for (OrderItem item : order.getOrderItems()) {
+            Product product = products.get(item.getProduct().getId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found with id: " + item.getProduct().getId());
+            }
+            item.setProduct(product);
+            if (item.getPrice() == null) {
+                item.setPrice(product.getPrice());
+            }
             item.setOrder(order);
             item.calculateSubtotal();
             totalAmount = totalAmount.add(item.getSubtotal());
-            
-            // Update product stock
-            productRepository.findById(item.getProduct().getId())
-                .ifPresent(product -> {
-                    product.setStockQuantity(product.getStockQuantity() - item.getQuantity());
-                    productRepository.save(product);
-                });
         }
         
+        // Reserve stock atomically; rolls the whole order back if any item is sold out
+        inventoryService.reserve(InventoryService.quantitiesOf(order.getOrderItems()));
+        
         order.setTotalAmount(totalAmount);
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        eventLog.publishAfterCommit(EventLog.EventType.ORDER_CREATED, saved.getId(), null,
+            saved.getStatus().name(), totalAmount, saved.getCurrency(), null);
+        paymentJournal.appendAfterCommit(PaymentJournal.RecordType.ORDER_STATUS, saved.getId(), null, null,
+            saved.getStatus(), totalAmount, null, "created");
+        return saved;
     }
     
-    public Order updateOrderStatus(Long id, Order.OrderStatus status) {
-        return orderRepository.findById(id)
+    public OrderResponse updateOrderStatus(Long id, Order.OrderStatus status) {
+        return orderRepository.findWithItemsById(id)
             .map(order -> {
+                Order.OrderStatus previous = order.getStatus();
                 order.setStatus(status);
-                return orderRepository.save(order);
+                outboxService.orderStatusChanged(order, previous, null, "status updated");
+                paymentJournal.appendAfterCommit(PaymentJournal.RecordType.ORDER_STATUS, order.getId(), null, null,
+                    status, null, null, "status updated");
+                return OrderResponse.from(orderRepository.save(order));
             })
             .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
     }
     
     public void cancelOrder(Long id) {
+        // Expire the pending payment first, as the reservation expiry does: this waits for a notification
+        // holding the payment row, and a settlement arriving later finds the order cancelled
+        int expired = paymentRepository.updateStatusByOrderIds(List.of(id),
+            Payment.PaymentStatus.PENDING, Payment.PaymentStatus.EXPIRED, LocalDateTime.now());
         orderRepository.findById(id).ifPresent(order -> {
+            if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+                return; // Stock was already released
+            }
+            Order.OrderStatus previous = order.getStatus();
             order.setStatus(Order.OrderStatus.CANCELLED);
+            outboxService.orderStatusChanged(order, previous, null, "cancelled");
             
             // Restore product stock
-            for (OrderItem item : order.getOrderItems()) {
-                productRepository.findById(item.getProduct().getId())
-                    .ifPresent(product -> {
-                        product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                        productRepository.save(product);
-                    });
-            }
+            inventoryService.release(InventoryService.quantitiesOf(order.getOrderItems()));
             
             orderRepository.save(order);
+            eventLog.publishAfterCommit(EventLog.EventType.ORDER_CANCELLED, order.getId(), null,
+                order.getStatus().name(), order.getTotalAmount(), order.getCurrency(), null);
+            paymentJournal.appendAfterCommit(PaymentJournal.RecordType.ORDER_STATUS, order.getId(), null,
+                expired > 0 ? Payment.PaymentStatus.EXPIRED : null, order.getStatus(), null, null, "cancelled");
+        });
+    }
+    
+    // Stopped once the surrounding transaction commits or rolls back
+    private void timeUntilCompletion(String name, String description) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder(name)
+                    .description(description)
+                    .tag("outcome", status == STATUS_COMMITTED ? "committed" : "rolled_back")
+                    .register(meterRegistry));
+            }
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,190 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.OutboxEvent;
+import com.realshyt.fashion.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers outbox events to the {@link OutboxSink}.
+ *
+ * Each batch takes three steps so no connection or row lock is held while the sink is called:
+ * a short transaction claims events with {@code FOR UPDATE SKIP LOCKED} (where supported) and
+ * leases them until now + {@code outbox.lease}, the sink is called outside any transaction, and a
+ * second short transaction records the outcome for events whose lease is still ours. A relay that
+ * dies mid-delivery leaves its lease to expire, after which another relay takes the events again.
+ * Only the first undelivered event of an order is claimable, which keeps events for one order in
+ * order: a later event waits until the earlier one is delivered, including while it backs off
+ * after a failed attempt. An event that still fails after {@code outbox.max-attempts} is marked
+ * FAILED and, until it is dealt with, blocks later events for that order.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+    
+    private static final int MAX_ERROR_LENGTH = 255;
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+    
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${outbox.retry.initial-backoff:1s}")
+    private Duration initialBackoff;
+    
+    @Value("${outbox.retry.max-backoff:5m}")
+    private Duration maxBackoff;
+    
+    @Value("${outbox.retention:7d}")
+    private Duration retention;
+    
+    // Longer than the sink can take for a batch, or a slow delivery is repeated by another relay
+    @Value("${outbox.lease:10m}")
+    private Duration lease;
+    
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.delivered = deliveries(meterRegistry, "delivered");
+        this.retried = deliveries(meterRegistry, "retry");
+        this.failed = deliveries(meterRegistry, "failed");
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+    
+    /**
+     * Deliver one batch of claimable events
+     * @return number of events taken from the outbox
+     */
+    public int relayBatch() {
+        // Millisecond precision so the lease compares equal after a round trip through the database
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime leaseUntil = now.plus(lease);
+        List<OutboxEvent> events = transactionTemplate.execute(status -> {
+            List<OutboxEvent> claimed = outboxEventRepository.findDeliverableForUpdate(OutboxEvent.OutboxStatus.PENDING,
+                OutboxEvent.OutboxStatus.DELIVERED, now, PageRequest.of(0, batchSize));
+            claimed.forEach(event -> event.setLeaseUntil(leaseUntil));
+            return claimed;
+        });
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        
+        Map<Long, Exception> failures = deliver(events);
+        transactionTemplate.executeWithoutResult(status -> record(events, failures, leaseUntil));
+        return events.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purgeDelivered() {
+        Integer purged = transactionTemplate.execute(tx -> outboxEventRepository.deleteDeliveredBefore(
+            OutboxEvent.OutboxStatus.DELIVERED, LocalDateTime.now().minus(retention)));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} delivered outbox events", purged);
+        }
+    }
+    
+    /**
+     * Hand the batch to the sink, falling back to one event at a time if the batch fails
+     * @return failure per event id; empty when everything was delivered
+     */
+    private Map<Long, Exception> deliver(List<OutboxEvent> events) {
+        Map<Long, Exception> failures = new HashMap<>();
+        try {
+            sink.deliver(events);
+        } catch (Exception e) {
+            log.warn("Outbox batch of {} events failed at {}, retrying one by one: {}", events.size(), sink.name(), e.getMessage());
+            for (OutboxEvent event : events) {
+                try {
+                    sink.deliver(List.of(event));
+                } catch (Exception single) {
+                    failures.put(event.getId(), single);
+                }
+            }
+        }
+        return failures;
+    }
+    
+    private void record(List<OutboxEvent> events, Map<Long, Exception> failures, LocalDateTime leaseUntil) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        for (OutboxEvent event : outboxEventRepository.findByIdInForUpdate(ids)) {
+            if (event.getStatus() != OutboxEvent.OutboxStatus.PENDING || !leaseUntil.equals(event.getLeaseUntil())) {
+                log.warn("Lease on outbox event {} expired during delivery; another relay owns it now", event.getId());
+                continue;
+            }
+            event.setLeaseUntil(null);
+            Exception failure = failures.get(event.getId());
+            if (failure == null) {
+                markDelivered(event, now);
+            } else {
+                markFailedAttempt(event, failure, now);
+            }
+        }
+    }
+    
+    private void markFailedAttempt(OutboxEvent event, Exception e, LocalDateTime now) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(e.getMessage() != null && e.getMessage().length() > MAX_ERROR_LENGTH
+            ? e.getMessage().substring(0, MAX_ERROR_LENGTH) : e.getMessage());
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+            failed.increment();
+            log.error("Giving up on outbox event {} ({} for order {}) after {} attempts: {}",
+                event.getId(), event.getEventType(), event.getOrderId(), event.getAttempts(), e.getMessage());
+        } else {
+            event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+            retried.increment();
+        }
+    }
+    
+    private void markDelivered(OutboxEvent event, LocalDateTime now) {
+        event.setStatus(OutboxEvent.OutboxStatus.DELIVERED);
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(null);
+        event.setDeliveredAt(now);
+        delivered.increment();
+    }
+    
+    // initial-backoff doubled per failed attempt, capped at max-backoff
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+    
+    private static Counter deliveries(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("outbox.deliveries")
+            .description("Outbox events handed to the sink, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OutboxEvent;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes order domain events to the outbox table in the caller's transaction, so an event exists
+ * if and only if the status change it describes was committed. {@link OutboxRelay} delivers them.
+ * 
+ * Each event gets the next sequence number of its order from a counter on the order row. Incrementing
+ * it locks the row until commit, so an order's events become visible in sequence order, whichever
+ * instance wrote them, and numbers are never reused after delivered events are purged.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    
+    // Statuses downstream systems act on: paid (fulfilment, email) and cancelled
+    static final Set<Order.OrderStatus> PUBLISHED = EnumSet.of(Order.OrderStatus.PROCESSING, Order.OrderStatus.CANCELLED);
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Record {@code order.processing} / {@code order.cancelled} if the order moved into one of those statuses
+     * @param payment the payment behind the change, or null
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order, Order.OrderStatus previous, Payment payment, String reason) {
+        Order.OrderStatus status = order.getStatus();
+        if (status == previous || !PUBLISHED.contains(status)) {
+            return;
+        }
+        
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("status", status.name());
+        payload.put("previousStatus", previous != null ? previous.name() : null);
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("currency", order.getCurrency());
+        payload.put("customerEmail", order.getCustomerEmail());
+        if (payment != null) {
+            payload.put("paymentId", payment.getId());
+            payload.put("midtransOrderId", payment.getMidtransOrderId());
+            payload.put("paymentStatus", payment.getStatus().name());
+        }
+        payload.put("reason", reason);
+        payload.put("occurredAt", LocalDateTime.now().toString());
+        
+        orderRepository.incrementOutboxSequence(order.getId());
+        OutboxEvent event = new OutboxEvent();
+        event.setOrderId(order.getId());
+        event.setOrderSequence(orderRepository.findOutboxSequence(order.getId()));
+        event.setEventType("order." + status.name().toLowerCase(Locale.ROOT));
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox event for order " + order.getId(), e);
+        }
+        outboxEventRepository.save(event);
+    }
+}
@@ -0,0 +1,39 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for outbox events, called by {@link OutboxRelay} outside any transaction while it
+ * holds a lease on the events.
+ *
+ * Events arrive oldest first. Throwing fails the whole list; the relay then retries the events
+ * one at a time so a single bad event does not hold back the others. Delivery is at least once
+ * (an event can be delivered again if recording the delivery fails or the lease runs out), so
+ * consumers deduplicate on the event id; {@code sequence} numbers each order's events from 1
+ * without gaps, so consumers can also check their order. Select an implementation with
+ * {@code outbox.sink} (file or http).
+ */
+public interface OutboxSink {
+    
+    /**
+     * Short description for logs
+     */
+    String name();
+    
+    void deliver(List<OutboxEvent> events) throws IOException;
+    
+    /**
+     * Event envelope as one JSON object: id, type, orderId, sequence, createdAt and the payload as {@code data}
+     */
+    static String toJson(OutboxEvent event) {
+        return "{\"id\":" + event.getId()
+            + ",\"type\":\"" + event.getEventType() + '"'
+            + ",\"orderId\":" + event.getOrderId()
+            + ",\"sequence\":" + event.getOrderSequence()
+            + ",\"createdAt\":\"" + event.getCreatedAt() + '"'
+            + ",\"data\":" + event.getPayload() + '}';
+    }
+}
@@ -0,0 +1,432 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of every payment and order state transition.
+ *
+ * Records go into fixed-size, memory-mapped segment files ({@code 00000000000000000000.journal},
+ * ...) under {@code journal.payments.dir}. Each record is {@code length(4) crc32c(4) payload}
+ * (see {@link JournalRecord} for the payload); the length is written last and a zero length marks
+ * the end of a segment, so a record torn by a crash fails its CRC check and is cut off on the
+ * next start. An in-memory index maps each Midtrans order id to the positions of its records.
+ *
+ * Appends are registered to run after the surrounding transaction commits, so the journal only
+ * contains committed transitions; {@link PaymentJournalReplayer} rebuilds status tables from it.
+ * 
+ * A transition committed just before a crash may never reach the journal, so the journal tracks
+ * whether it can have lost records: a {@code journal.open} marker left behind by an unclean
+ * shutdown, a torn or corrupt record, or a failed append writes a {@code journal.incomplete}
+ * marker that stays until the directory is reset. {@link #isComplete()} reports it.
+ */
+@Component
+@Slf4j
+public class PaymentJournal {
+    
+    public enum RecordType {
+        /** Snap transaction created; payment PENDING */
+        PAYMENT_CREATED,
+        /** Midtrans notification received; detail is transaction_status/status_code */
+        NOTIFICATION,
+        /** Payment status applied from a notification, with the resulting order status */
+        PAYMENT_STATUS,
+        /** Order status changed outside the payment flow */
+        ORDER_STATUS,
+        /** Unpaid order cancelled by the reservation expiry job; a PENDING payment becomes EXPIRED */
+        ORDER_EXPIRED
+    }
+    
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(JournalRecord record);
+    }
+    
+    static final int HEADER_LENGTH = 8;
+    private static final int MAX_STRING_BYTES = 1024;
+    private static final String SUFFIX = ".journal";
+    private static final String OPEN_MARKER = "journal.open";
+    private static final String INCOMPLETE_MARKER = "journal.incomplete";
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+    private final Counter appendErrors;
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C(); // guarded by appendLock
+    private final List<MappedByteBuffer> segments = new ArrayList<>(); // guarded by appendLock
+    private int position; // write position in the last segment, guarded by appendLock
+    private final ConcurrentHashMap<String, long[]> index = new ConcurrentHashMap<>();
+    
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private volatile boolean open;
+    private volatile boolean complete;
+    
+    public PaymentJournal(@Value("${journal.payments.enabled:true}") boolean enabled,
+                          @Value("${journal.payments.dir:data/payment-journal}") Path directory,
+                          @Value("${journal.payments.segment-size:64MB}") DataSize segmentSize,
+                          @Value("${journal.payments.force-on-append:false}") boolean forceOnAppend,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.forceOnAppend = forceOnAppend;
+        this.appendErrors = Counter.builder("payments.journal.append_errors")
+            .description("Transitions that could not be written to the payment journal")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Map existing segments, cut off a torn last record and rebuild the index
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            log.warn("Payment journal {} is in use by another instance; journaling disabled", directory);
+            return;
+        }
+        
+        complete = !Files.exists(directory.resolve(INCOMPLETE_MARKER));
+        if (Files.exists(directory.resolve(OPEN_MARKER))) {
+            markIncomplete("the previous run did not shut down cleanly");
+        } else {
+            Files.createFile(directory.resolve(OPEN_MARKER));
+        }
+        
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            segments.add(map(file, Math.max(Files.size(file), segmentSize)));
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentPath(0), segmentSize));
+        }
+        
+        long records = 0;
+        for (int segment = 0; segment < segments.size(); segment++) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int end = scan(buffer, buffer.capacity(), segment, this::index);
+            records += countRecords(buffer, end);
+            if (segment == segments.size() - 1) {
+                position = end;
+                truncateTornRecord(buffer, end);
+            } else if (end + HEADER_LENGTH <= buffer.capacity() && buffer.getInt(end) != 0) {
+                log.error("Payment journal segment {} is corrupt after offset {}; later records in it are skipped", segment, end);
+                markIncomplete("segment " + segment + " is corrupt");
+            }
+        }
+        open = true;
+        log.info("Payment journal opened with {} records in {} segments", records, segments.size());
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            open = false;
+            segments.forEach(MappedByteBuffer::force);
+            if (lock != null) {
+                Files.deleteIfExists(directory.resolve(OPEN_MARKER));
+                lock.release();
+                lockChannel.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Journal a transition once the surrounding transaction commits (immediately when there is none)
+     */
+    public void appendAfterCommit(RecordType type, long orderId, Long paymentId, Payment.PaymentStatus paymentStatus,
+                                  Order.OrderStatus orderStatus, BigDecimal amount, String midtransOrderId, String detail) {
+        if (!open) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(type, orderId, paymentId, paymentStatus, orderStatus, amount, midtransOrderId, detail);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(type, orderId, paymentId, paymentStatus, orderStatus, amount, midtransOrderId, detail);
+            }
+        });
+    }
+    
+    /**
+     * Append one record; failures are logged and counted, never thrown to the business flow
+     */
+    public void append(RecordType type, long orderId, Long paymentId, Payment.PaymentStatus paymentStatus,
+                       Order.OrderStatus orderStatus, BigDecimal amount, String midtransOrderId, String detail) {
+        if (!open) {
+            return;
+        }
+        byte[] id = truncate(midtransOrderId);
+        byte[] text = truncate(detail);
+        int length = JournalRecord.FIXED_LENGTH + id.length + text.length;
+        
+        appendLock.lock();
+        try {
+            if (position + HEADER_LENGTH + length + HEADER_LENGTH > segmentSize) {
+                roll();
+            }
+            MappedByteBuffer buffer = segments.get(segments.size() - 1);
+            int start = position;
+            int payload = start + HEADER_LENGTH;
+            buffer.putLong(payload, System.currentTimeMillis());
+            buffer.put(payload + JournalRecord.TYPE, (byte) type.ordinal());
+            buffer.putLong(payload + JournalRecord.ORDER_ID, orderId);
+            buffer.putLong(payload + JournalRecord.PAYMENT_ID, paymentId != null ? paymentId : 0);
+            buffer.put(payload + JournalRecord.PAYMENT_STATUS, (byte) (paymentStatus != null ? paymentStatus.ordinal() + 1 : 0));
+            buffer.put(payload + JournalRecord.ORDER_STATUS, (byte) (orderStatus != null ? orderStatus.ordinal() + 1 : 0));
+            buffer.putLong(payload + JournalRecord.AMOUNT, amount != null ? amount.unscaledValue().longValueExact() : 0);
+            buffer.put(payload + JournalRecord.AMOUNT_SCALE, (byte) (amount != null ? amount.scale() : -1));
+            int cursor = putString(buffer, payload + JournalRecord.MIDTRANS_ORDER_ID, id);
+            putString(buffer, cursor, text);
+            
+            crc.reset();
+            crc.update(buffer.slice(payload, length));
+            buffer.putInt(start + 4, (int) crc.getValue());
+            buffer.putInt(start, length); // written last: the record becomes visible complete
+            if (forceOnAppend) {
+                buffer.force(start, HEADER_LENGTH + length);
+            }
+            position = payload + length;
+            
+            if (midtransOrderId != null) {
+                addToIndex(midtransOrderId, segments.size() - 1, start);
+            }
+        } catch (IOException | RuntimeException e) {
+            appendErrors.increment();
+            log.error("Could not journal {} for order {}: {}", type, orderId, e.getMessage());
+            markIncomplete("an append failed");
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Records for one Midtrans order, oldest first
+     */
+    public List<JournalRecord> history(String midtransOrderId) {
+        long[] positions = index.get(midtransOrderId);
+        if (positions == null) {
+            return List.of();
+        }
+        List<MappedByteBuffer> mapped = snapshotSegments();
+        List<JournalRecord> records = new ArrayList<>(positions.length);
+        for (long packed : positions) {
+            int segment = (int) (packed >>> 32);
+            int offset = (int) packed;
+            records.add(new JournalRecord().wrap(mapped.get(segment).duplicate(), offset + HEADER_LENGTH));
+        }
+        return records;
+    }
+    
+    /**
+     * Feed every record written so far to the handler in journal order, verifying CRCs
+     * @return number of records replayed
+     */
+    public long replay(RecordHandler handler) {
+        List<MappedByteBuffer> mapped;
+        int lastEnd;
+        appendLock.lock();
+        try {
+            mapped = List.copyOf(segments);
+            lastEnd = position;
+        } finally {
+            appendLock.unlock();
+        }
+        
+        JournalRecord record = new JournalRecord();
+        long[] count = new long[1];
+        for (int segment = 0; segment < mapped.size(); segment++) {
+            ByteBuffer buffer = mapped.get(segment).duplicate();
+            int limit = segment == mapped.size() - 1 ? lastEnd : buffer.capacity();
+            scan(buffer, limit, segment, (payload, recordSegment, recordOffset) -> {
+                handler.handle(record.wrap(buffer, payload));
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+    
+    public boolean isOpen() {
+        return open;
+    }
+    
+    /**
+     * Whether every transition committed while this journal was in use is in it
+     */
+    public boolean isComplete() {
+        return open && complete;
+    }
+    
+    @FunctionalInterface
+    private interface ScanCallback {
+        void accept(int payloadOffset, int segment, int recordOffset);
+    }
+    
+    /**
+     * Walk valid records up to {@code limit}
+     * @return offset just past the last valid record
+     */
+    private int scan(ByteBuffer buffer, int limit, int segment, ScanCallback callback) {
+        CRC32C check = new CRC32C();
+        int offset = 0;
+        while (offset + HEADER_LENGTH <= limit) {
+            int length = buffer.getInt(offset);
+            if (length < JournalRecord.FIXED_LENGTH || offset + HEADER_LENGTH + length > limit) {
+                break; // end of data or torn header
+            }
+            check.reset();
+            check.update(buffer.slice(offset + HEADER_LENGTH, length));
+            if ((int) check.getValue() != buffer.getInt(offset + 4)) {
+                break; // torn or corrupt record
+            }
+            callback.accept(offset + HEADER_LENGTH, segment, offset);
+            offset += HEADER_LENGTH + length;
+        }
+        return offset;
+    }
+    
+    private void index(int payloadOffset, int segment, int recordOffset) {
+        String midtransOrderId = new JournalRecord().wrap(segments.get(segment), payloadOffset).midtransOrderId();
+        if (midtransOrderId != null) {
+            addToIndex(midtransOrderId, segment, recordOffset);
+        }
+    }
+    
+    private void addToIndex(String midtransOrderId, int segment, int recordOffset) {
+        long packed = ((long) segment << 32) | (recordOffset & 0xFFFFFFFFL);
+        index.merge(midtransOrderId, new long[]{packed}, (existing, added) -> {
+            long[] merged = Arrays.copyOf(existing, existing.length + 1);
+            merged[existing.length] = added[0];
+            return merged;
+        });
+    }
+    
+    private long countRecords(ByteBuffer buffer, int end) {
+        long records = 0;
+        int offset = 0;
+        while (offset < end) {
+            offset += HEADER_LENGTH + buffer.getInt(offset);
+            records++;
+        }
+        return records;
+    }
+    
+    // Zero whatever a crash left after the last valid record so it can never be mistaken for data
+    private void truncateTornRecord(MappedByteBuffer buffer, int end) {
+        if (end + HEADER_LENGTH > buffer.capacity() || buffer.getInt(end) == 0) {
+            return;
+        }
+        log.warn("Discarding a torn record at offset {} of the last payment journal segment", end);
+        markIncomplete("a torn record was discarded");
+        int tornEnd = (int) Math.min(buffer.capacity(), (long) end + HEADER_LENGTH + Math.max(0, buffer.getInt(end)));
+        for (int i = end; i < tornEnd; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+    
+    private void markIncomplete(String reason) {
+        if (!complete) {
+            return;
+        }
+        complete = false;
+        log.warn("Payment journal {} may be missing transitions: {}", directory, reason);
+        try {
+            Files.writeString(directory.resolve(INCOMPLETE_MARKER), reason + System.lineSeparator());
+        } catch (IOException e) {
+            log.error("Could not write {}: {}", INCOMPLETE_MARKER, e.getMessage());
+        }
+    }
+    
+    private void roll() throws IOException {
+        MappedByteBuffer current = segments.get(segments.size() - 1);
+        current.force();
+        segments.add(map(segmentPath(segments.size()), segmentSize));
+        position = 0;
+    }
+    
+    private List<MappedByteBuffer> snapshotSegments() {
+        appendLock.lock();
+        try {
+            return List.copyOf(segments);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%020d%s", segment, SUFFIX));
+    }
+    
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+    
+    private static int putString(ByteBuffer buffer, int position, byte[] bytes) {
+        buffer.putShort(position, (short) bytes.length);
+        buffer.put(position + 2, bytes);
+        return position + 2 + bytes.length;
+    }
+    
+    private static byte[] truncate(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= MAX_STRING_BYTES ? bytes : Arrays.copyOf(bytes, MAX_STRING_BYTES);
+    }
+}
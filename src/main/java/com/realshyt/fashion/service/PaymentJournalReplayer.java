@@ -0,0 +1,190 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds payment and order status from the {@link PaymentJournal}.
+ *
+ * The journal is replayed into the final status per order and per payment (keyed by order id;
+ * there is one payment per order), then written back with one bulk update per status and chunk
+ * of ids. Rows the journal never saw are left alone. Run it with
+ * {@code --journal.payments.rebuild-on-startup=true}, or call {@link #rebuildStatusTables()}.
+ * 
+ * The journal can only add to what the database knows: an update applies only when it moves a
+ * row forward from its current status ({@link #orderStatusesBefore}, {@link #paymentStatusesBefore}),
+ * so a transition missing from the journal never rolls a row back. A rebuild is refused unless
+ * {@link PaymentJournal#isComplete()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentJournalReplayer {
+    
+    private static final int UPDATE_CHUNK = 1000;
+    
+    public record ReplayResult(long records, int orders, int payments, int ordersUpdated, int paymentsUpdated,
+                               Duration replayTime) {
+    }
+    
+    /**
+     * Final status per order and payment after replaying the journal
+     */
+    public record ReplayedState(Map<Long, Order.OrderStatus> orders, Map<Long, Payment.PaymentStatus> payments,
+                                long records) {
+    }
+    
+    private final PaymentJournal journal;
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${journal.payments.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfRequested() {
+        if (rebuildOnStartup) {
+            if (!journal.isComplete()) {
+                log.error("Not rebuilding status from the payment journal: it is closed or may be missing transitions");
+                return;
+            }
+            ReplayResult result = rebuildStatusTables();
+            log.info("Rebuilt status from {} journal records in {} ms: {} orders and {} payments updated",
+                result.records(), result.replayTime().toMillis(), result.ordersUpdated(), result.paymentsUpdated());
+        }
+    }
+    
+    public ReplayedState replay() {
+        Map<Long, Order.OrderStatus> orders = new HashMap<>();
+        Map<Long, Payment.PaymentStatus> payments = new HashMap<>();
+        long records = journal.replay(record -> {
+            switch (record.type()) {
+                case PAYMENT_CREATED, PAYMENT_STATUS -> {
+                    payments.put(record.orderId(), record.paymentStatus());
+                    if (record.orderStatus() != null) {
+                        orders.put(record.orderId(), record.orderStatus());
+                    }
+                }
+                case ORDER_STATUS -> {
+                    orders.put(record.orderId(), record.orderStatus());
+                    if (record.paymentStatus() == Payment.PaymentStatus.EXPIRED) {
+                        expirePending(payments, record.orderId());
+                    }
+                }
+                case ORDER_EXPIRED -> {
+                    orders.put(record.orderId(), Order.OrderStatus.CANCELLED);
+                    expirePending(payments, record.orderId());
+                }
+                case NOTIFICATION -> {
+                    // history only; the resulting change is its own PAYMENT_STATUS record
+                }
+            }
+        });
+        return new ReplayedState(orders, payments, records);
+    }
+    
+    public ReplayResult rebuildStatusTables() {
+        if (!journal.isComplete()) {
+            throw new IllegalStateException("Payment journal is closed or may be missing transitions; refusing to rebuild");
+        }
+        long start = System.nanoTime();
+        ReplayedState state = replay();
+        Duration replayTime = Duration.ofNanos(System.nanoTime() - start);
+        
+        LocalDateTime now = LocalDateTime.now();
+        int ordersUpdated = 0;
+        for (Map.Entry<Order.OrderStatus, List<Long>> byStatus : groupByStatus(state.orders(), Order.OrderStatus.class).entrySet()) {
+            Set<Order.OrderStatus> from = orderStatusesBefore(byStatus.getKey());
+            if (from.isEmpty()) {
+                continue;
+            }
+            for (List<Long> chunk : chunks(byStatus.getValue())) {
+                Integer updated = transactionTemplate.execute(tx -> orderRepository.updateStatusByIdIn(chunk, from, byStatus.getKey(), now));
+                ordersUpdated += updated != null ? updated : 0;
+            }
+        }
+        int paymentsUpdated = 0;
+        for (Map.Entry<Payment.PaymentStatus, List<Long>> byStatus : groupByStatus(state.payments(), Payment.PaymentStatus.class).entrySet()) {
+            Set<Payment.PaymentStatus> from = paymentStatusesBefore(byStatus.getKey());
+            if (from.isEmpty()) {
+                continue;
+            }
+            for (List<Long> chunk : chunks(byStatus.getValue())) {
+                Integer updated = transactionTemplate.execute(tx -> paymentRepository.updateStatusByOrderIdIn(chunk, from, byStatus.getKey(), now));
+                paymentsUpdated += updated != null ? updated : 0;
+            }
+        }
+        return new ReplayResult(state.records(), state.orders().size(), state.payments().size(),
+            ordersUpdated, paymentsUpdated, replayTime);
+    }
+    
+    /**
+     * Order statuses from which {@code target} is a forward transition: along
+     * PENDING, PENDING_PAYMENT, PROCESSING, SHIPPED, DELIVERED, and to CANCELLED from anything not yet delivered
+     */
+    static Set<Order.OrderStatus> orderStatusesBefore(Order.OrderStatus target) {
+        Set<Order.OrderStatus> from = EnumSet.noneOf(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            boolean forward = target == Order.OrderStatus.CANCELLED
+                ? status != Order.OrderStatus.CANCELLED && status != Order.OrderStatus.DELIVERED
+                : status != Order.OrderStatus.CANCELLED && status.ordinal() < target.ordinal();
+            if (forward) {
+                from.add(status);
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * Payment statuses from which {@code target} is a forward transition
+     */
+    static Set<Payment.PaymentStatus> paymentStatusesBefore(Payment.PaymentStatus target) {
+        return switch (target) {
+            case PENDING -> EnumSet.noneOf(Payment.PaymentStatus.class);
+            case PROCESSING -> EnumSet.of(Payment.PaymentStatus.PENDING);
+            case SUCCESS, FAILED, EXPIRED, CANCELLED -> EnumSet.of(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING);
+            case REFUND_REQUIRED -> EnumSet.of(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING,
+                Payment.PaymentStatus.FAILED, Payment.PaymentStatus.EXPIRED, Payment.PaymentStatus.CANCELLED);
+            case REFUNDED -> EnumSet.of(Payment.PaymentStatus.SUCCESS, Payment.PaymentStatus.REFUND_REQUIRED);
+        };
+    }
+    
+    private static void expirePending(Map<Long, Payment.PaymentStatus> payments, long orderId) {
+        payments.computeIfPresent(orderId, (id, status) ->
+            status == Payment.PaymentStatus.PENDING ? Payment.PaymentStatus.EXPIRED : status);
+    }
+    
+    private static <S extends Enum<S>> Map<S, List<Long>> groupByStatus(Map<Long, S> statuses, Class<S> type) {
+        Map<S, List<Long>> grouped = new EnumMap<>(type);
+        statuses.forEach((id, status) -> grouped.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+        return grouped;
+    }
+    
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += UPDATE_CHUNK) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + UPDATE_CHUNK)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,174 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.dto.MidtransNotification;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.entity.PaymentNotification;
+import com.realshyt.fashion.repository.PaymentNotificationRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Midtrans webhook inbox.
+ *
+ * The webhook only verifies the signature and inserts the notification into
+ * {@code payment_notifications}; duplicates (same order, transaction status and status code) are
+ * dropped by the unique key. A scheduled worker applies queued notifications in batches, in
+ * arrival order, locking the affected payments so notifications for one order are never applied
+ * concurrently. A batch that fails is retried one notification at a time so a single bad
+ * notification is marked FAILED instead of blocking the queue. Non-empty batches are timed as
+ * {@code payments.notifications.batches}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentNotificationService {
+    
+    private static final int MAX_ERROR_LENGTH = 255;
+    
+    private final PaymentNotificationRepository notificationRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final MidtransSignatureVerifier signatureVerifier;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${payments.notifications.batch-size:100}")
+    private int batchSize;
+    
+    /**
+     * Verify and queue a notification
+     * @return false if the same notification was already received
+     */
+    public boolean receive(MidtransNotification notification) {
+        if (!signatureVerifier.verify(notification)) {
+            log.error("Invalid signature for notification: {}", notification.getOrder_id());
+            throw new RuntimeException("Invalid signature");
+        }
+        
+        PaymentNotification queued = new PaymentNotification();
+        queued.setMidtransOrderId(notification.getOrder_id());
+        queued.setTransactionStatus(notification.getTransaction_status());
+        queued.setStatusCode(Objects.toString(notification.getStatus_code(), ""));
+        queued.setPaymentType(notification.getPayment_type());
+        queued.setFraudStatus(notification.getFraud_status());
+        queued.setTransactionTime(notification.getTransaction_time());
+        queued.setSettlementTime(notification.getSettlement_time());
+        queued.setGrossAmount(notification.getGross_amount());
+        queued.setStatusMessage(notification.getStatus_message());
+        
+        try {
+            Boolean inserted = transactionTemplate.execute(status -> {
+                if (notificationRepository.existsByMidtransOrderIdAndTransactionStatusAndStatusCode(
+                        queued.getMidtransOrderId(), queued.getTransactionStatus(), queued.getStatusCode())) {
+                    return false;
+                }
+                notificationRepository.saveAndFlush(queued);
+                return true;
+            });
+            return Boolean.TRUE.equals(inserted);
+        } catch (DataIntegrityViolationException e) {
+            return false; // a concurrent delivery of the same notification won the insert
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${payments.notifications.poll-interval-ms:500}")
+    public void processQueued() {
+        int processed;
+        do {
+            processed = processBatch();
+        } while (processed == batchSize);
+    }
+    
+    /**
+     * Apply one batch of queued notifications
+     * @return number of notifications taken from the queue
+     */
+    public int processBatch() {
+        long start = System.nanoTime();
+        try {
+            Integer processed = transactionTemplate.execute(status -> applyBatch(lockBatch()));
+            if (processed != null && processed > 0) {
+                recordBatch("batch", start);
+            }
+            return processed != null ? processed : 0;
+        } catch (RuntimeException e) {
+            log.warn("Notification batch failed, retrying one by one: {}", e.getMessage());
+        }
+        
+        List<Long> batchIds = transactionTemplate.execute(status ->
+            lockBatch().stream().map(PaymentNotification::getId).toList());
+        for (Long id : batchIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    notificationRepository.findWithLockById(id).ifPresent(notification -> applyBatch(List.of(notification))));
+            } catch (RuntimeException e) {
+                log.error("Failed to apply notification {}: {}", id, e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> notificationRepository.findWithLockById(id)
+                    .ifPresent(notification -> markDone(notification, PaymentNotification.NotificationStatus.FAILED, e.getMessage())));
+            }
+        }
+        recordBatch("one_by_one", start);
+        return batchIds.size();
+    }
+    
+    private void recordBatch(String mode, long startNanos) {
+        Timer.builder("payments.notifications.batches")
+            .description("Time to apply a batch of queued Midtrans notifications")
+            .tag("mode", mode)
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private List<PaymentNotification> lockBatch() {
+        return notificationRepository.findBatchForUpdate(
+            PaymentNotification.NotificationStatus.RECEIVED, PageRequest.of(0, batchSize));
+    }
+    
+    private int applyBatch(List<PaymentNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        
+        List<String> midtransOrderIds = notifications.stream().map(PaymentNotification::getMidtransOrderId).distinct().toList();
+        Map<String, Payment> payments = paymentRepository.findByMidtransOrderIdInForUpdate(midtransOrderIds).stream()
+            .collect(Collectors.toMap(Payment::getMidtransOrderId, Function.identity()));
+        
+        for (PaymentNotification notification : notifications) {
+            if (notification.getStatus() != PaymentNotification.NotificationStatus.RECEIVED) {
+                continue; // already handled by another worker before the retry picked it up
+            }
+            Payment payment = payments.get(notification.getMidtransOrderId());
+            if (payment == null) {
+                markDone(notification, PaymentNotification.NotificationStatus.FAILED, "Payment not found");
+                continue;
+            }
+            paymentService.applyNotification(payment, notification);
+            markDone(notification, PaymentNotification.NotificationStatus.PROCESSED, null);
+        }
+        return notifications.size();
+    }
+    
+    private static void markDone(PaymentNotification notification, PaymentNotification.NotificationStatus status, String error) {
+        notification.setStatus(status);
+        notification.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+            ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        notification.setProcessedAt(LocalDateTime.now());
+    }
+}
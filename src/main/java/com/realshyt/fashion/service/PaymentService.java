@@ -1,23 +1,28 @@
 package com.realshyt.fashion.service;
 
-import com.realshyt.fashion.dto.MidtransNotification;
+import com.realshyt.fashion.client.MidtransClient;
+import com.realshyt.fashion.client.MidtransOutcomeUnknownException;
+import com.realshyt.fashion.client.MidtransUnavailableException;
 import com.realshyt.fashion.dto.PaymentRequest;
 import com.realshyt.fashion.dto.PaymentResponse;
 import com.realshyt.fashion.entity.Order;
 import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.entity.PaymentNotification;
 import com.realshyt.fashion.repository.OrderRepository;
 import com.realshyt.fashion.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
@@ -26,29 +31,112 @@ import java.util.*;
 @Slf4j
 public class PaymentService {
     
+    private static final DateTimeFormatter MIDTRANS_EXPIRY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z");
+    
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final CurrencyConversionService currencyConversionService;
-    private final RestTemplate restTemplate;
-    
-    @Value("${midtrans.server-key:SB-Mid-server-YOUR_SERVER_KEY}")
-    private String midtransServerKey;
+    private final InventoryService inventoryService;
+    private final MidtransClient midtransClient;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final EventLog eventLog;
+    private final PaymentJournal paymentJournal;
+    private final OutboxService outboxService;
     
     @Value("${midtrans.client-key:SB-Mid-client-YOUR_CLIENT_KEY}")
     private String midtransClientKey;
     
-    @Value("${midtrans.api-url:https://app.sandbox.midtrans.com/snap/v1/transactions}")
-    private String midtransApiUrl;
-    
     @Value("${midtrans.is-production:false}")
     private boolean isProduction;
     
-    @Transactional
+    @Value("${orders.reservation.ttl:60m}")
+    private Duration reservationTtl;
+    
+    /**
+     * Create the Snap transaction for an order.
+     *
+     * Runs in three phases so no database connection is held during the Midtrans round trip:
+     * a short transaction persists a PENDING payment intent (the unique order_id column keeps this
+     * idempotent under concurrent requests), the Midtrans call runs outside any transaction, and a
+     * second short transaction stores the Snap token. If Midtrans fails the intent is deleted so
+     * the payment can be retried. If the transaction may exist at Midtrans anyway
+     * ({@link MidtransOutcomeUnknownException}) the intent is kept: deleting it would orphan a
+     * transaction whose notification could no longer be matched, so the notification or the
+     * reservation expiry settles it instead.
+     */
     public PaymentResponse createPayment(PaymentRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            PaymentResponse response = create(request);
+            outcome = "success";
+            return response;
+        } finally {
+            sample.stop(Timer.builder("payments.create")
+                .description("Payment creation, Midtrans round trip included")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+    
+    private PaymentResponse create(PaymentRequest request) {
+        PaymentIntent intent;
+        try {
+            intent = transactionTemplate.execute(status -> persistIntent(request));
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Payment already exists for this order");
+        }
+        
+        Map<String, Object> midtransResponse;
+        try {
+            // Call Midtrans API
+            midtransResponse = midtransClient.createTransaction(intent.midtransRequest());
+        } catch (MidtransOutcomeUnknownException e) {
+            log.warn("Keeping payment intent {} for order {}: {}", intent.paymentId(), intent.orderId(), e.getMessage());
+            eventLog.publish(EventLog.EventType.PAYMENT_FAILED, intent.orderId(), intent.paymentId(),
+                Payment.PaymentStatus.PENDING.name(), intent.amount(), "IDR", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error creating payment: {}", e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> paymentRepository.deleteById(intent.paymentId()));
+            eventLog.publish(EventLog.EventType.PAYMENT_FAILED, intent.orderId(), intent.paymentId(), null,
+                intent.amount(), "IDR", e.getMessage());
+            if (e instanceof MidtransUnavailableException unavailable) {
+                throw unavailable; // retryable: lets the controller answer 503
+            }
+            throw new RuntimeException("Failed to create payment: " + e.getMessage());
+        }
+        
+        Payment payment = transactionTemplate.execute(status -> finalizePayment(intent, midtransResponse));
+        eventLog.publish(EventLog.EventType.PAYMENT_CREATED, intent.orderId(), payment.getId(),
+            payment.getStatus().name(), payment.getAmount(), payment.getCurrency(), intent.midtransOrderId());
+        
+        // Return amount in user's currency for display
+        BigDecimal displayAmount = intent.userCurrency().equals("IDR") ? intent.amount()
+            : intent.fxRates().convert(intent.amount(), "IDR", intent.userCurrency());
+        
+        return new PaymentResponse(
+            payment.getId(),
+            intent.orderId(),
+            intent.midtransOrderId(),
+            payment.getSnapToken(),
+            payment.getSnapRedirectUrl(),
+            displayAmount,
+            payment.getStatus().toString(),
+            "Payment created successfully"
+        );
+    }
+    
+    private PaymentIntent persistIntent(PaymentRequest request) {
         // Validate order
-        Order order = orderRepository.findById(request.getOrderId())
+        Order order = orderRepository.findWithItemsById(request.getOrderId())
             .orElseThrow(() -> new RuntimeException("Order not found"));
         
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            throw new RuntimeException("Order is cancelled");
+        }
+        
         if (paymentRepository.existsByOrderId(order.getId())) {
             throw new RuntimeException("Payment already exists for this order");
         }
@@ -59,76 +147,73 @@ public class PaymentService {
             userCurrency = order.getCurrency();
         }
         
-        // Convert order amount to IDR for Midtrans (Midtrans requires IDR)
+        // Convert order amount to IDR for Midtrans (Midtrans requires IDR), all from one rate snapshot
+        FxRateSnapshot fxRates = currencyConversionService.currentSnapshot();
         BigDecimal orderAmount = order.getTotalPrice();
         if (!userCurrency.equals("IDR")) {
-            orderAmount = currencyConversionService.toIDR(orderAmount, userCurrency);
-            log.info("Converted {} {} to {} IDR", order.getTotalPrice(), userCurrency, orderAmount);
+            orderAmount = fxRates.convert(orderAmount, userCurrency, "IDR");
+            log.debug("Converted {} {} to {} IDR", order.getTotalPrice(), userCurrency, orderAmount);
         }
         
         // Generate unique order ID for Midtrans
         String midtransOrderId = "ORDER-" + order.getId() + "-" + System.currentTimeMillis();
         
-        // Create payment entity
+        // Persist the payment intent; flush so a concurrent duplicate fails here, not after the Midtrans call
         Payment payment = new Payment();
         payment.setOrder(order);
         payment.setAmount(orderAmount); // Amount in IDR for Midtrans
         payment.setCurrency("IDR");
         payment.setMidtransOrderId(midtransOrderId);
         payment.setStatus(Payment.PaymentStatus.PENDING);
+        payment.setFxRateVersion(fxRates.version());
+        payment.setFxRate(fxRates.rateToIdr(userCurrency));
+        payment = paymentRepository.saveAndFlush(payment);
         
-        // Build Midtrans request
+        // Build Midtrans request while the order items are loaded
         Map<String, Object> midtransRequest = buildMidtransRequest(
             order, 
+            fxRates, 
             midtransOrderId, 
             request.getCustomerName(),
             request.getCustomerEmail(),
             request.getCustomerPhone(),
-            orderAmount
+            orderAmount,
+            reservationTtl
         );
         
-        try {
-            // Call Midtrans API
-            Map<String, Object> midtransResponse = callMidtransApi(midtransRequest);
-            
-            // Update payment with Midtrans response
-            payment.setSnapToken((String) midtransResponse.get("token"));
-            payment.setSnapRedirectUrl((String) midtransResponse.get("redirect_url"));
-            payment.setTransactionId(midtransOrderId);
-            
-            // Save payment
-            payment = paymentRepository.save(payment);
-            
-            // Update order status
+        return new PaymentIntent(payment.getId(), order.getId(), midtransOrderId, orderAmount, userCurrency,
+            fxRates, midtransRequest);
+    }
+    
+    private Payment finalizePayment(PaymentIntent intent, Map<String, Object> midtransResponse) {
+        Payment payment = paymentRepository.findById(intent.paymentId())
+            .orElseThrow(() -> new RuntimeException("Payment not found"));
+        
+        // Update payment with Midtrans response
+        payment.setSnapToken((String) midtransResponse.get("token"));
+        payment.setSnapRedirectUrl((String) midtransResponse.get("redirect_url"));
+        payment.setTransactionId(intent.midtransOrderId());
+        
+        // Update order status, unless it was cancelled while Midtrans was called
+        Order order = payment.getOrder();
+        if (order.getStatus() == Order.OrderStatus.PENDING) {
             order.setStatus(Order.OrderStatus.PENDING_PAYMENT);
-            orderRepository.save(order);
-            
-            log.info("Payment created successfully for order: {}", order.getId());
-            
-            // Return amount in user's currency for display
-            BigDecimal displayAmount = userCurrency.equals("IDR") ? orderAmount 
-                : currencyConversionService.fromIDR(orderAmount, userCurrency);
-            
-            return new PaymentResponse(
-                payment.getId(),
-                order.getId(),
-                midtransOrderId,
-                payment.getSnapToken(),
-                payment.getSnapRedirectUrl(),
-                displayAmount,
-                payment.getStatus().toString(),
-                "Payment created successfully"
-            );
-            
-        } catch (Exception e) {
-            log.error("Error creating payment: {}", e.getMessage());
-            throw new RuntimeException("Failed to create payment: " + e.getMessage());
         }
+        paymentJournal.appendAfterCommit(PaymentJournal.RecordType.PAYMENT_CREATED, order.getId(), payment.getId(),
+            payment.getStatus(), order.getStatus(), payment.getAmount(), payment.getMidtransOrderId(), null);
+        return payment;
     }
     
-    private Map<String, Object> buildMidtransRequest(Order order, String orderId, 
-                                                     String customerName, String customerEmail, 
-                                                     String customerPhone, BigDecimal amount) {
+    private record PaymentIntent(Long paymentId, Long orderId, String midtransOrderId, BigDecimal amount,
+                                 String userCurrency, FxRateSnapshot fxRates, Map<String, Object> midtransRequest) {
+    }
+    
+    /**
+     * Snap request body for an order whose items are loaded; static so it can be benchmarked without a service
+     */
+    static Map<String, Object> buildMidtransRequest(Order order, FxRateSnapshot fxRates, String orderId, 
+                                                    String customerName, String customerEmail, 
+                                                    String customerPhone, BigDecimal amount, Duration reservationTtl) {
         Map<String, Object> request = new HashMap<>();
         
         // Transaction details
@@ -155,7 +240,7 @@ public class PaymentService {
             // Convert product price to IDR for Midtrans
             BigDecimal productPrice = item.getPrice();
             if (!orderCurrency.equals("IDR")) {
-                productPrice = currencyConversionService.toIDR(productPrice, orderCurrency);
+                productPrice = fxRates.convert(productPrice, orderCurrency, "IDR");
             }
             
             itemDetail.put("price", productPrice.longValue());
@@ -172,132 +257,109 @@ public class PaymentService {
         ));
         request.put("enabled_payments", enabledPayments.get("enabled_payments"));
         
-        return request;
-    }
-    
-    private Map<String, Object> callMidtransApi(Map<String, Object> request) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            // Basic auth with server key
-            String auth = midtransServerKey + ":";
-            byte[] encodedAuth = Base64.getEncoder().encode(auth.getBytes(StandardCharsets.UTF_8));
-            String authHeader = "Basic " + new String(encodedAuth);
-            headers.set("Authorization", authHeader);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-            
-            log.info("Calling Midtrans API: {}", midtransApiUrl);
-            
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map<String, Object>> response = 
-                (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.exchange(
-                    midtransApiUrl,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-                );
-            
-            log.info("Midtrans API response status: {}", response.getStatusCode());
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return response.getBody();
-            } else {
-                throw new RuntimeException("Midtrans API call failed with status: " + response.getStatusCode());
-            }
-        } catch (Exception e) {
-            log.error("Error calling Midtrans API: {}", e.getMessage());
-            throw new RuntimeException("Failed to call Midtrans API: " + e.getMessage());
+        // Expire the Snap transaction together with the stock reservation
+        Map<String, Object> expiry = new HashMap<>();
+        if (order.getCreatedAt() != null) {
+            expiry.put("start_time", order.getCreatedAt().atZone(ZoneId.systemDefault()).format(MIDTRANS_EXPIRY_FORMAT));
         }
+        expiry.put("unit", "minute");
+        expiry.put("duration", reservationTtl.toMinutes());
+        request.put("expiry", expiry);
+        
+        return request;
     }
     
-    @Transactional
-    public void handleMidtransNotification(MidtransNotification notification) {
-        log.info("Handling Midtrans notification for order: {}", notification.getOrder_id());
+    /**
+     * Apply a queued notification to its payment and order.
+     * Called by {@link PaymentNotificationService} inside its batch transaction.
+     *
+     * Transitions only move forward: once a payment is settled, failed or expired, late, repeated or
+     * re-ordered notifications for it do not change its status or its order's.
+     */
+    void applyNotification(Payment payment, PaymentNotification notification) {
+        paymentJournal.appendAfterCommit(PaymentJournal.RecordType.NOTIFICATION, payment.getOrder().getId(), payment.getId(),
+            null, null, null, payment.getMidtransOrderId(),
+            notification.getTransactionStatus() + "/" + notification.getStatusCode());
         
-        // Verify signature
-        if (!verifySignature(notification)) {
-            log.error("Invalid signature for notification: {}", notification.getOrder_id());
-            throw new RuntimeException("Invalid signature");
+        Payment.PaymentStatus target = switch (notification.getTransactionStatus()) {
+            case "capture", "settlement" -> Payment.PaymentStatus.SUCCESS;
+            case "pending" -> Payment.PaymentStatus.PENDING;
+            case "deny", "cancel" -> Payment.PaymentStatus.FAILED;
+            case "expire" -> Payment.PaymentStatus.EXPIRED;
+            default -> null;
+        };
+        if (target == null) {
+            log.warn("Unknown transaction status: {}", notification.getTransactionStatus());
+            return;
+        }
+        Order order = payment.getOrder();
+        if (target == Payment.PaymentStatus.SUCCESS && order.getStatus() == Order.OrderStatus.CANCELLED
+                && payment.getStatus() != Payment.PaymentStatus.SUCCESS) {
+            // Paid after a cancellation or reservation expiry released the stock: never revive the order
+            target = Payment.PaymentStatus.REFUND_REQUIRED;
+        }
+        if (payment.getStatus() == target && target != Payment.PaymentStatus.PENDING) {
+            // e.g. a card "settlement" after its "capture": the payment and order already reflect it
+            log.debug("Ignoring {} notification for order {}: payment is already {}",
+                notification.getTransactionStatus(), notification.getMidtransOrderId(), payment.getStatus());
+            return;
+        }
+        if (payment.getStatus() != Payment.PaymentStatus.PENDING && target != Payment.PaymentStatus.REFUND_REQUIRED) {
+            log.debug("Ignoring {} notification for order {}: payment is already {}",
+                notification.getTransactionStatus(), notification.getMidtransOrderId(), payment.getStatus());
+            return;
         }
-        
-        // Find payment
-        Payment payment = paymentRepository.findByMidtransOrderId(notification.getOrder_id())
-            .orElseThrow(() -> new RuntimeException("Payment not found"));
         
         // Update payment based on transaction status
-        payment.setPaymentType(notification.getPayment_type());
-        payment.setFraudStatus(notification.getFraud_status());
+        payment.setPaymentType(notification.getPaymentType());
+        payment.setFraudStatus(notification.getFraudStatus());
         
-        if (notification.getTransaction_time() != null) {
-            payment.setTransactionTime(parseDateTime(notification.getTransaction_time()));
+        if (notification.getTransactionTime() != null) {
+            payment.setTransactionTime(parseDateTime(notification.getTransactionTime()));
         }
         
-        if (notification.getSettlement_time() != null) {
-            payment.setSettlementTime(parseDateTime(notification.getSettlement_time()));
+        if (notification.getSettlementTime() != null) {
+            payment.setSettlementTime(parseDateTime(notification.getSettlementTime()));
         }
         
-        Order order = payment.getOrder();
+        Order.OrderStatus previous = order.getStatus();
+        payment.setStatus(target);
+        eventLog.publishAfterCommit(EventLog.EventType.PAYMENT_STATUS_CHANGED, order.getId(), payment.getId(),
+            target.name(), payment.getAmount(), payment.getCurrency(), notification.getTransactionStatus());
         
-        switch (notification.getTransaction_status()) {
-            case "capture":
-            case "settlement":
-                payment.setStatus(Payment.PaymentStatus.SUCCESS);
-                order.setStatus(Order.OrderStatus.PROCESSING);
-                log.info("Payment successful for order: {}", order.getId());
-                break;
-                
-            case "pending":
-                payment.setStatus(Payment.PaymentStatus.PENDING);
-                order.setStatus(Order.OrderStatus.PENDING_PAYMENT);
-                break;
-                
-            case "deny":
-            case "cancel":
-                payment.setStatus(Payment.PaymentStatus.FAILED);
-                payment.setFailureReason(notification.getStatus_message());
-                order.setStatus(Order.OrderStatus.CANCELLED);
-                log.warn("Payment failed for order: {}", order.getId());
-                break;
-                
-            case "expire":
-                payment.setStatus(Payment.PaymentStatus.EXPIRED);
-                order.setStatus(Order.OrderStatus.CANCELLED);
-                break;
-                
-            default:
-                log.warn("Unknown transaction status: {}", notification.getTransaction_status());
+        switch (target) {
+            case SUCCESS -> {
+                // Never move a shipped or cancelled order back
+                if (order.getStatus() == Order.OrderStatus.PENDING || order.getStatus() == Order.OrderStatus.PENDING_PAYMENT) {
+                    order.setStatus(Order.OrderStatus.PROCESSING);
+                }
+            }
+            case PENDING -> {
+                if (order.getStatus() == Order.OrderStatus.PENDING) {
+                    order.setStatus(Order.OrderStatus.PENDING_PAYMENT);
+                }
+            }
+            case FAILED -> {
+                payment.setFailureReason(notification.getStatusMessage());
+                cancelAndReleaseStock(order);
+            }
+            case REFUND_REQUIRED -> {
+                log.warn("Payment {} captured for cancelled order {}: refund required", payment.getMidtransOrderId(), order.getId());
+                payment.setFailureReason("Paid after the order was cancelled");
+            }
+            default -> cancelAndReleaseStock(order);
         }
-        
-        paymentRepository.save(payment);
-        orderRepository.save(order);
+        outboxService.orderStatusChanged(order, previous, payment, notification.getTransactionStatus());
+        paymentJournal.appendAfterCommit(PaymentJournal.RecordType.PAYMENT_STATUS, order.getId(), payment.getId(),
+            target, order.getStatus(), payment.getAmount(), payment.getMidtransOrderId(), notification.getTransactionStatus());
     }
     
-    private boolean verifySignature(MidtransNotification notification) {
-        // Implement signature verification
-        // SHA512(order_id + status_code + gross_amount + server_key)
-        try {
-            String signatureString = notification.getOrder_id() + 
-                                   notification.getStatus_code() + 
-                                   notification.getGross_amount() + 
-                                   midtransServerKey;
-            
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-512");
-            byte[] hash = md.digest(signatureString.getBytes(StandardCharsets.UTF_8));
-            
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return hexString.toString().equals(notification.getSignature_key());
-        } catch (Exception e) {
-            log.error("Error verifying signature: {}", e.getMessage());
-            return false;
+    private void cancelAndReleaseStock(Order order) {
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            return; // Already cancelled, e.g. by the reservation expiry job
         }
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        inventoryService.release(InventoryService.quantitiesOf(order.getOrderItems()));
     }
     
     private LocalDateTime parseDateTime(String dateTimeStr) {
@@ -0,0 +1,280 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory inverted index over product name, category and description.
+ *
+ * Query terms match index terms exactly, as a prefix (for typeahead) or, for terms of four or more
+ * characters, within one edit (insert, delete, substitute or swap). Typo candidates are found through
+ * a delete-variant map instead of scanning the vocabulary. Results are ranked by the number of
+ * query terms matched, then by field-weighted score.
+ *
+ * Reads are lock-free; updates are applied per product under a single writer lock.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+    
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.6f;
+    private static final float TYPO_MATCH = 0.4f;
+    private static final int MIN_TYPO_LENGTH = 4;
+    
+    private final CatalogCache catalogCache;
+    
+    // term -> (product id -> field-weighted term score)
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    // product id -> indexed terms, to remove a product's postings on update/delete
+    private final ConcurrentHashMap<Long, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+    // term with one character deleted (and the term itself) -> terms, for typo lookup
+    private final ConcurrentHashMap<String, Set<String>> deleteVariants = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    public ProductSearchIndex(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+    
+    /**
+     * Search active products, best matches first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, float[]> hits = new HashMap<>(); // product id -> {matched terms, score}
+        for (String term : new HashSet<>(queryTerms)) {
+            Map<Long, Float> termScores = new HashMap<>();
+            collect(termScores, postings.get(term), EXACT_MATCH);
+            collectPrefixed(termScores, postings.subMap(term, false, term + Character.MAX_VALUE, false), PREFIX_MATCH);
+            if (termScores.isEmpty() && term.length() >= MIN_TYPO_LENGTH) {
+                for (String candidate : typoCandidates(term)) {
+                    collect(termScores, postings.get(candidate), TYPO_MATCH);
+                }
+            }
+            termScores.forEach((productId, score) -> {
+                float[] hit = hits.computeIfAbsent(productId, id -> new float[2]);
+                hit[0]++;
+                hit[1] += score;
+            });
+        }
+        
+        return hits.entrySet().stream()
+            .sorted(Comparator.<Map.Entry<Long, float[]>>comparingDouble(e -> e.getValue()[0])
+                .thenComparingDouble(e -> e.getValue()[1])
+                .reversed()
+                .thenComparing(Map.Entry::getKey))
+            .limit(limit)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+    
+    /**
+     * Add or replace a product; inactive products are removed from the index
+     */
+    public void index(Product product) {
+        writeLock.lock();
+        try {
+            removeInternal(product.getId());
+            if (!Boolean.TRUE.equals(product.getIsActive())) {
+                return;
+            }
+            
+            Map<String, Float> weights = new HashMap<>();
+            addTerms(weights, product.getName(), NAME_WEIGHT);
+            addTerms(weights, product.getCategory(), CATEGORY_WEIGHT);
+            addTerms(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+            
+            weights.forEach((term, weight) -> {
+                postings.computeIfAbsent(term, t -> {
+                    for (String variant : deletes(t)) {
+                        deleteVariants.computeIfAbsent(variant, v -> ConcurrentHashMap.newKeySet()).add(t);
+                    }
+                    return new ConcurrentHashMap<>();
+                }).put(product.getId(), weight);
+            });
+            termsByProduct.put(product.getId(), Set.copyOf(weights.keySet()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        writeLock.lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Apply the change once the surrounding transaction commits, like {@link CatalogCache#invalidateAfterCommit()}
+     */
+    public void indexAfterCommit(Product product) {
+        afterCommit(() -> index(product));
+    }
+    
+    public void removeAfterCommit(Long productId) {
+        afterCommit(() -> remove(productId));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = catalogCache.current().products();
+        products.forEach(this::index);
+        log.debug("Search index built with {} terms for {} products", postings.size(), termsByProduct.size());
+    }
+    
+    private void removeInternal(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            termPostings.remove(productId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+                for (String variant : deletes(term)) {
+                    Set<String> variantTerms = deleteVariants.get(variant);
+                    if (variantTerms != null) {
+                        variantTerms.remove(term);
+                        if (variantTerms.isEmpty()) {
+                            deleteVariants.remove(variant);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private Set<String> typoCandidates(String term) {
+        Set<String> candidates = new HashSet<>();
+        for (String variant : deletes(term)) {
+            Set<String> terms = deleteVariants.get(variant);
+            if (terms != null) {
+                for (String candidate : terms) {
+                    if (withinOneEdit(term, candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+    
+    private static void collect(Map<Long, Float> scores, Map<Long, Float> termPostings, float factor) {
+        if (termPostings != null) {
+            termPostings.forEach((productId, weight) -> scores.merge(productId, weight * factor, Math::max));
+        }
+    }
+    
+    private static void collectPrefixed(Map<Long, Float> scores, NavigableMap<String, Map<Long, Float>> prefixed, float factor) {
+        for (Map<Long, Float> termPostings : prefixed.values()) {
+            collect(scores, termPostings, factor);
+        }
+    }
+    
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letterOrDigit = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                terms.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+    
+    // The term itself plus every variant with one character removed
+    private static Set<String> deletes(String term) {
+        Set<String> variants = new HashSet<>();
+        variants.add(term);
+        if (term.length() >= MIN_TYPO_LENGTH - 1) {
+            for (int i = 0; i < term.length(); i++) {
+                variants.add(term.substring(0, i) + term.substring(i + 1));
+            }
+        }
+        return variants;
+    }
+    
+    // Damerau-Levenshtein distance <= 1
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (Math.abs(lengthDiff) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDiff == 0) {
+            if (i == a.length()) {
+                return true;
+            }
+            // substitution or adjacent swap
+            return a.substring(i + 1).equals(b.substring(i + 1))
+                || (i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.substring(i + 2).equals(b.substring(i + 2)));
+        }
+        return lengthDiff > 0
+            ? a.substring(i + 1).equals(b.substring(i))
+            : a.substring(i).equals(b.substring(i + 1));
+    }
+}
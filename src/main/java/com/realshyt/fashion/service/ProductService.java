@@ -4,9 +4,10 @@ import com.realshyt.fashion.entity.Product;
 import com.realshyt.fashion.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -14,29 +15,24 @@ import java.util.Optional;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
-    }
-    
-    public List<Product> getActiveProducts() {
-        return productRepository.findByIsActiveTrue();
-    }
-    
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
-    }
-    
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
-    }
-    
-    public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+    // Served from the in-memory snapshot and the search index; no transaction needed
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Product> searchProducts(String keyword, int limit) {
+        CatalogSnapshot catalog = catalogCache.current();
+        return searchIndex.search(keyword, limit).stream()
+            .map(catalog::findById)
+            .filter(Objects::nonNull)
+            .toList();
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogCache.invalidateAfterCommit();
+        searchIndex.indexAfterCommit(saved);
+        return saved;
     }
     
     public Product updateProduct(Long id, Product productDetails) {
@@ -49,22 +45,26 @@ public class ProductService {
                 product.setCategory(productDetails.getCategory());
                 product.setStockQuantity(productDetails.getStockQuantity());
                 product.setIsActive(productDetails.getIsActive());
-                return productRepository.save(product);
+                Product saved = productRepository.save(product);
+                catalogCache.invalidateAfterCommit();
+                searchIndex.indexAfterCommit(saved);
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
     
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        catalogCache.invalidateAfterCommit();
+        searchIndex.removeAfterCommit(id);
     }
     
     public boolean updateStock(Long productId, Integer quantity) {
-        return productRepository.findById(productId)
-            .map(product -> {
-                product.setStockQuantity(product.getStockQuantity() - quantity);
-                productRepository.save(product);
-                return true;
-            })
-            .orElse(false);
+        // Conditional decrement so concurrent updates can't drive stock below zero
+        if (productRepository.decrementStock(productId, quantity) == 0) {
+            return false;
+        }
+        catalogCache.invalidateAfterCommit();
+        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.realshyt.fashion.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file written through a reusable direct buffer and rolled by size
+ * ({@code events.log} becomes {@code events.log.1}, and so on up to the history limit).
+ * Not thread-safe: only the event log writer thread uses it.
+ */
+final class RollingEventFile implements Closeable {
+    
+    private final Path path;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    
+    private FileChannel channel;
+    private long size;
+    
+    RollingEventFile(Path path, long maxFileSize, int maxHistory, int bufferSize) throws IOException {
+        this.path = path;
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+    
+    /**
+     * Encode complete lines into the buffer, writing it out whenever it fills up
+     */
+    void append(CharSequence lines) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(lines);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Write out buffered lines and roll the file if it is over the size limit
+     */
+    void flush() throws IOException {
+        writeBuffer();
+        if (size >= maxFileSize) {
+            roll();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writeBuffer();
+        channel.close();
+    }
+    
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private void roll() throws IOException {
+        channel.close();
+        if (maxHistory > 0) {
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                Path older = rolled(i);
+                if (Files.exists(older)) {
+                    Files.move(older, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(path);
+        }
+        open();
+    }
+    
+    private Path rolled(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+    
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.realshyt.fashion.client;
+
+import com.realshyt.fashion.support.MidtransStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MidtransClientTest {
+
+    private MidtransStubServer stub;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = MidtransStubServer.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() {
+        stub.failNext(2, 503);
+        MidtransClient client = client(Duration.ofSeconds(2), 2, 5);
+
+        Map<String, Object> response = client.createTransaction(Map.of("transaction_details", Map.of()));
+
+        assertThat(response).containsKey("token");
+        assertThat(stub.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        stub.alwaysRespondWith(400);
+        MidtransClient client = client(Duration.ofSeconds(2), 2, 5);
+
+        assertThatThrownBy(() -> client.createTransaction(Map.of())).isInstanceOf(RuntimeException.class);
+        assertThat(stub.requestCount()).isEqualTo(1);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void timesOutSlowResponses() {
+        stub.latency(Duration.ofSeconds(2));
+        MidtransClient client = client(Duration.ofMillis(200), 0, 5);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.createTransaction(Map.of())).isInstanceOf(RuntimeException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void responseTimeoutIsNotRetriedAndLooksUpTheTransaction() {
+        stub.latency(Duration.ofSeconds(2)).lookupRespondsWith(200);
+        MidtransClient client = client(Duration.ofMillis(200), 2, 5);
+
+        assertThatThrownBy(() -> client.createTransaction(request("ORDER-1-1")))
+            .isInstanceOf(MidtransOutcomeUnknownException.class)
+            .extracting(e -> ((MidtransOutcomeUnknownException) e).getOrderId()).isEqualTo("ORDER-1-1");
+        assertThat(stub.requestCount()).isEqualTo(1);
+        assertThat(stub.statusLookupCount()).isEqualTo(1);
+    }
+
+    @Test
+    void responseTimeoutForAnUnknownTransactionIsReportedUnavailable() {
+        stub.latency(Duration.ofSeconds(2));
+        MidtransClient client = client(Duration.ofMillis(200), 2, 5);
+
+        assertThatThrownBy(() -> client.createTransaction(request("ORDER-2-1")))
+            .isInstanceOf(MidtransUnavailableException.class);
+        assertThat(stub.requestCount()).isEqualTo(1);
+        assertThat(stub.statusLookupCount()).isEqualTo(1);
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailures() {
+        stub.alwaysRespondWith(500);
+        MidtransClient client = client(Duration.ofSeconds(2), 0, 2);
+
+        assertThatThrownBy(() -> client.createTransaction(Map.of())).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> client.createTransaction(Map.of())).isInstanceOf(RuntimeException.class);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.createTransaction(Map.of()))
+            .isInstanceOf(MidtransUnavailableException.class)
+            .hasMessageContaining("circuit breaker is open");
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    private static Map<String, Object> request(String orderId) {
+        return Map.of("transaction_details", Map.of("order_id", orderId, "gross_amount", 100000));
+    }
+
+    private MidtransClient client(Duration readTimeout, int maxRetries, int failureThreshold) {
+        return new MidtransClient(WebClient.builder(), stub.url(), stub.statusUrl(), "SB-Mid-server-test",
+            10, 100, Duration.ofSeconds(1), readTimeout, maxRetries, Duration.ofMillis(10),
+            failureThreshold, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+}
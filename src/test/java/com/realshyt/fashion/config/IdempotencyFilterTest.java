@@ -0,0 +1,203 @@
+package com.realshyt.fashion.config;
+
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.MidtransStubServer;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    private static final int STOCK = 10;
+
+    private static final MidtransStubServer MIDTRANS = startStub();
+
+    @DynamicPropertySource
+    static void midtransProperties(DynamicPropertyRegistry registry) {
+        registry.add("midtrans.api-url", MIDTRANS::url);
+        registry.add("midtrans.status-api-url", MIDTRANS::statusUrl);
+        registry.add("midtrans.client.max-retries", () -> "0");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        MIDTRANS.close();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        productId = productRepository.save(TestOrders.product("Idempotent Hoodie", "750000", "Hoodies", STOCK)).getId();
+    }
+
+    @Test
+    void retryReplaysTheOriginalResponseWithoutReservingStockAgain() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String email = key + "@example.com";
+
+        MockHttpServletResponse first = createOrder(key, orderJson(email));
+        MockHttpServletResponse retry = createOrder(key, orderJson(email));
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED)).isEqualTo("true");
+        assertThat(retry.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+        assertThat(orderRepository.findByCustomerEmail(email)).hasSize(1);
+        assertThat(stock()).isEqualTo(STOCK - 1);
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        createOrder(key, orderJson(key + "@example.com"));
+        MockHttpServletResponse reused = createOrder(key, orderJson("someone-else@example.com"));
+
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(stock()).isEqualTo(STOCK - 1);
+    }
+
+    @Test
+    void concurrentDuplicatesCreateASingleOrder() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String email = key + "@example.com";
+        int duplicates = 8;
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        List<byte[]> bodies = new ArrayList<>();
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < duplicates; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return createOrder(key, orderJson(email));
+                }));
+            }
+            start.countDown();
+            for (Future<MockHttpServletResponse> future : futures) {
+                MockHttpServletResponse response = future.get(30, TimeUnit.SECONDS);
+                assertThat(response.getStatus()).isEqualTo(201);
+                bodies.add(response.getContentAsByteArray());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(bodies).allSatisfy(body -> assertThat(body).isEqualTo(bodies.get(0)));
+        assertThat(orderRepository.findByCustomerEmail(email)).hasSize(1);
+        assertThat(stock()).isEqualTo(STOCK - 1);
+    }
+
+    @Test
+    void requestsWithoutAKeyAreNotDeduplicated() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+
+        createOrder(null, orderJson(email));
+        createOrder(null, orderJson(email));
+
+        assertThat(orderRepository.findByCustomerEmail(email)).hasSize(2);
+        assertThat(stock()).isEqualTo(STOCK - 2);
+    }
+
+    @Test
+    void oversizedBodiesAreRejectedWithoutCreatingAnOrder() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        String padded = orderJson(email).replace("Jl. Kemang 5", "x".repeat(70 * 1024));
+
+        MockHttpServletResponse response = createOrder(UUID.randomUUID().toString(), padded);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(orderRepository.findByCustomerEmail(email)).isEmpty();
+        assertThat(stock()).isEqualTo(STOCK);
+    }
+
+    @Test
+    void midtransOutageAnswers503AndLeavesTheKeyFreeForARetry() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        createOrder(null, orderJson(email));
+        Long orderId = orderRepository.findByCustomerEmail(email).get(0).getId();
+        String key = UUID.randomUUID().toString();
+
+        MIDTRANS.failNext(1, 503);
+        MockHttpServletResponse outage = createPayment(key, orderId);
+        MockHttpServletResponse retry = createPayment(key, orderId);
+
+        assertThat(outage.getStatus()).isEqualTo(503);
+        assertThat(retry.getStatus()).isEqualTo(200);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED)).isNull();
+        assertThat(retry.getContentAsString()).contains("stub-token-");
+    }
+
+    private MockHttpServletResponse createPayment(String key, Long orderId) throws Exception {
+        return mockMvc.perform(post("/api/payments/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .content("{\"orderId\": " + orderId + "}"))
+            .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse createOrder(String key, String json) throws Exception {
+        var request = post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(json);
+        if (key != null) {
+            request.header(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private String orderJson(String email) {
+        return """
+            {"customerName": "Retrying Client", "customerEmail": "%s", "shippingAddress": "Jl. Kemang 5",
+             "orderItems": [{"product": {"id": %d}, "quantity": 1}]}
+            """.formatted(email, productId);
+    }
+
+    private static MidtransStubServer startStub() {
+        try {
+            return MidtransStubServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+}
@@ -0,0 +1,133 @@
+package com.realshyt.fashion.config;
+
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Every statement counts as slow so the ring buffer can be inspected
+@SpringBootTest(properties = {
+    "sql.monitor.slow-query-threshold=0ms",
+    "management.endpoints.web.exposure.include=sql"
+})
+@AutoConfigureMockMvc
+class SqlMonitorTest {
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clear() {
+        sqlMonitor.clear();
+    }
+
+    @Test
+    void selectRepeatedWithinOneRequestIsFlaggedForItsEndpoint() {
+        List<Long> ids = createProducts(6);
+
+        sqlMonitor.beginRequest("GET /test/products");
+        ids.forEach(productRepository::findById);
+        sqlMonitor.endRequest("GET /test/products");
+
+        assertThat(sqlMonitor.nPlusOneSuspects())
+            .anySatisfy(suspect -> {
+                assertThat(suspect.endpoint()).isEqualTo("GET /test/products");
+                assertThat(suspect.sql()).startsWith("select").contains("products");
+                assertThat(suspect.maxRepeats()).isEqualTo(6);
+            });
+    }
+
+    @Test
+    void fewRepeatsAreNotFlagged() {
+        List<Long> ids = createProducts(2);
+
+        sqlMonitor.beginRequest("GET /test/few");
+        ids.forEach(productRepository::findById);
+        sqlMonitor.endRequest("GET /test/few");
+
+        assertThat(sqlMonitor.nPlusOneSuspects()).noneMatch(suspect -> suspect.endpoint().equals("GET /test/few"));
+    }
+
+    @Test
+    void slowQueriesKeepBindParameterTypesButNotValues() {
+        Long id = createProducts(1).get(0);
+
+        productRepository.findById(id);
+
+        assertThat(sqlMonitor.slowQueries())
+            .anySatisfy(query -> {
+                assertThat(query.sql()).startsWith("select").contains("products");
+                assertThat(query.parameters()).containsExactly("<Long>");
+            });
+    }
+
+    @Test
+    void nullBindParametersAreRecordedAsNull() {
+        Long id = createProducts(1).get(0);
+
+        jdbcTemplate.update("UPDATE products SET description = ? WHERE id = ?", null, id);
+
+        assertThat(sqlMonitor.slowQueries())
+            .anySatisfy(query -> {
+                assertThat(query.sql()).startsWith("UPDATE products SET description");
+                assertThat(query.parameters()).containsExactly("null", "<Long>");
+            });
+    }
+
+    @Test
+    void endpointRequiresALogin() throws Exception {
+        assertThat(mockMvc.perform(get("/actuator/sql")).andReturn().getResponse().getStatus()).isEqualTo(401);
+        assertThat(mockMvc.perform(delete("/actuator/sql")).andReturn().getResponse().getStatus()).isEqualTo(401);
+        assertThat(mockMvc.perform(get("/actuator/sql").with(user("ops"))).andReturn().getResponse().getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void statementsAreCountedPerEndpointPattern() throws Exception {
+        Long id = createProducts(1).get(0);
+
+        mockMvc.perform(get("/api/products/" + id));
+        String report = mockMvc.perform(get("/actuator/sql").with(user("ops"))).andReturn().getResponse().getContentAsString();
+
+        DistributionSummary perRequest = meterRegistry.find("sql.statements.per_request")
+            .tag("endpoint", "GET /api/products/{id}")
+            .summary();
+        assertThat(perRequest).isNotNull();
+        assertThat(perRequest.count()).isPositive();
+        assertThat(report).contains("slowQueries").contains("nPlusOneSuspects");
+    }
+
+    private List<Long> createProducts(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(productRepository.save(TestOrders.product("Monitored Item " + i, "120000", "Accessories", 5)).getId());
+        }
+        return ids;
+    }
+}
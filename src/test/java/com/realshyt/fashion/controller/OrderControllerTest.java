@@ -0,0 +1,129 @@
+package com.realshyt.fashion.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderControllerTest {
+
+    // Later than any other test's orders, so these come first in every listing; newest id first among them
+    private static final LocalDateTime CREATED = LocalDateTime.of(2100, 1, 1, 12, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void pagesWalkOrdersSharingACreationTimeWithoutGapsOrRepeats() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        List<Long> expected = createOrders(email, 5).stream().sorted(Comparator.reverseOrder()).toList();
+
+        assertThat(walk("/api/orders/customer/" + email, 2, expected.size())).isEqualTo(expected);
+        assertThat(walk("/api/orders/status/DELIVERED", 2, expected.size())).isEqualTo(expected);
+        assertThat(walk("/api/orders", 2, expected.size())).isEqualTo(expected);
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        createOrders(email, 3);
+
+        JsonNode first = page("/api/orders/customer/" + email + "?limit=2");
+        JsonNode last = page("/api/orders/customer/" + email + "?limit=2&cursor=" + first.get("nextCursor").asText());
+
+        assertThat(first.get("items")).hasSize(2);
+        assertThat(last.get("items")).hasSize(1);
+        assertThat(last.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void limitIsCappedAt200AndAtLeastOne() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        createOrders(email, 201);
+
+        JsonNode capped = page("/api/orders/customer/" + email + "?limit=1000");
+        JsonNode minimum = page("/api/orders/customer/" + email + "?limit=0");
+
+        assertThat(capped.get("items")).hasSize(200);
+        assertThat(capped.get("nextCursor").isNull()).isFalse();
+        assertThat(minimum.get("items")).hasSize(1);
+    }
+
+    @Test
+    void malformedCursorIsRejected() throws Exception {
+        for (String path : List.of("/api/orders", "/api/orders/status/DELIVERED", "/api/orders/customer/someone@example.com")) {
+            for (String cursor : List.of("not*base64", "bm8tc2VwYXJhdG9y", "MjAyNS0wMS0wMXwx")) {
+                MockHttpServletResponse response = mockMvc.perform(get(path).param("cursor", cursor)).andReturn().getResponse();
+
+                assertThat(response.getStatus()).as("%s?cursor=%s", path, cursor).isEqualTo(400);
+                assertThat(response.getContentAsString()).contains("Invalid cursor");
+            }
+        }
+    }
+
+    // Follows nextCursor until the given number of ids was collected
+    private List<Long> walk(String path, int limit, int wanted) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        while (ids.size() < wanted) {
+            JsonNode page = page(path + "?limit=" + limit + (cursor != null ? "&cursor=" + cursor : ""));
+            assertThat(page.get("items").size()).isBetween(1, limit);
+            page.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+            if (page.get("nextCursor").isNull()) {
+                break;
+            }
+            cursor = page.get("nextCursor").asText();
+        }
+        return ids.subList(0, Math.min(wanted, ids.size()));
+    }
+
+    private JsonNode page(String uri) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(uri)).andReturn().getResponse();
+        assertThat(response.getStatus()).as(uri).isEqualTo(200);
+        return objectMapper.readTree(response.getContentAsString());
+    }
+
+    private List<Long> createOrders(String email, int count) {
+        List<Order> orders = IntStream.range(0, count).mapToObj(i -> {
+            Order order = new Order();
+            order.setCustomerName("Pager " + i);
+            order.setCustomerEmail(email);
+            order.setShippingAddress("Jl. Thamrin " + i);
+            order.setTotalAmount(new BigDecimal("100000"));
+            order.setStatus(Order.OrderStatus.DELIVERED);
+            return order;
+        }).toList();
+        List<Long> ids = orderRepository.saveAll(orders).stream().map(Order::getId).toList();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE customer_email = ?", CREATED, email);
+        return ids;
+    }
+}
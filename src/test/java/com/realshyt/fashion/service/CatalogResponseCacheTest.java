@@ -0,0 +1,101 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CatalogResponseCacheTest {
+
+    @Autowired
+    private CatalogResponseCache catalogResponses;
+
+    @Autowired
+    private CurrencyConversionService currencyConversionService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void rendersConvertedPricesOncePerCatalogAndRateVersion() throws Exception {
+        Long id = productRepository.save(TestOrders.product("Price List Hoodie", "1399000", "Hoodies", 3)).getId();
+        catalogCache.refresh();
+
+        CatalogResponseCache.Rendered usd = catalogResponses.product(id, CurrencyCode.USD).orElseThrow();
+        JsonNode json = objectMapper.readTree(usd.body());
+        assertThat(json.get("price").decimalValue()).isEqualByComparingTo("87.44");
+        assertThat(json.get("currency").asText()).isEqualTo("USD");
+        assertThat(objectMapper.readTree(catalogResponses.product(id, CurrencyCode.JPY).orElseThrow().body())
+            .get("price").decimalValue()).isEqualByComparingTo("13324");
+
+        // Served from the cache until the catalog or the rates change
+        assertThat(catalogResponses.product(id, CurrencyCode.USD).orElseThrow().body()).isSameAs(usd.body());
+
+        Map<CurrencyCode, BigDecimal> original = currencyConversionService.currentSnapshot().rates();
+        Map<CurrencyCode, BigDecimal> changed = new EnumMap<>(original);
+        changed.put(CurrencyCode.USD, new BigDecimal("14000"));
+        currencyConversionService.publish(changed);
+        try {
+            CatalogResponseCache.Rendered repriced = catalogResponses.product(id, CurrencyCode.USD).orElseThrow();
+            assertThat(repriced.etag()).isNotEqualTo(usd.etag());
+            assertThat(objectMapper.readTree(repriced.body()).get("price").decimalValue()).isEqualByComparingTo("99.93");
+        } finally {
+            currencyConversionService.publish(original);
+        }
+
+        // ETags follow the content, not the rate or snapshot versions
+        assertThat(catalogResponses.product(id, CurrencyCode.USD).orElseThrow().etag()).isEqualTo(usd.etag());
+        catalogCache.refresh();
+        assertThat(catalogResponses.product(id, CurrencyCode.USD).orElseThrow().etag()).isEqualTo(usd.etag());
+
+        Product product = productRepository.findById(id).orElseThrow();
+        product.setPrice(new BigDecimal("1499000"));
+        productRepository.save(product);
+        catalogCache.refresh();
+        assertThat(catalogResponses.product(id, CurrencyCode.USD).orElseThrow().etag()).isNotEqualTo(usd.etag());
+    }
+
+    @Test
+    void unknownCategoriesAreNotMemoized() {
+        CatalogSnapshot catalog = catalogCache.refresh();
+        int memoized = catalog.renderedResponses().size();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(new String(catalogResponses.productsByCategory("no-such-category-" + i).body(), StandardCharsets.UTF_8)).isEqualTo("[]");
+        }
+        assertThat(catalog.renderedResponses()).hasSize(memoized);
+    }
+
+    @Test
+    void lruCacheStaysWithinItsByteBudget() {
+        ByteBudgetLruCache<String> cache = new ByteBudgetLruCache<>(100);
+        cache.get("a", key -> new byte[40]);
+        cache.get("b", key -> new byte[40]);
+        cache.get("a", key -> new byte[40]); // a is now most recently used
+        cache.get("c", key -> new byte[40]);
+
+        assertThat(cache.totalBytes()).isEqualTo(80);
+        byte[] reloadedB = new byte[40];
+        assertThat(cache.get("b", key -> reloadedB)).isSameAs(reloadedB);
+        assertThat(cache.get("huge", key -> new byte[500])).hasSize(500);
+        assertThat(cache.totalBytes()).isLessThanOrEqualTo(100);
+    }
+}
@@ -0,0 +1,99 @@
+package com.realshyt.fashion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyConversionServiceTest {
+
+    // Rates and arithmetic of the original HashMap-based implementation
+    private static final Map<String, BigDecimal> ORIGINAL_RATES = Map.ofEntries(
+        Map.entry("IDR", BigDecimal.ONE),
+        Map.entry("USD", new BigDecimal("16000")),
+        Map.entry("EUR", new BigDecimal("17300")),
+        Map.entry("GBP", new BigDecimal("20200")),
+        Map.entry("SGD", new BigDecimal("11800")),
+        Map.entry("MYR", new BigDecimal("3400")),
+        Map.entry("AUD", new BigDecimal("10500")),
+        Map.entry("JPY", new BigDecimal("105")),
+        Map.entry("CNY", new BigDecimal("2200")),
+        Map.entry("HKD", new BigDecimal("2050")),
+        Map.entry("KRW", new BigDecimal("12")),
+        Map.entry("THB", new BigDecimal("450")));
+
+    private static final List<BigDecimal> AMOUNTS = List.of(
+        new BigDecimal("0"), new BigDecimal("0.005"), new BigDecimal("1"), new BigDecimal("45.99"),
+        new BigDecimal("89.995"), new BigDecimal("129.99"), new BigDecimal("250000"),
+        new BigDecimal("1399000.00"), new BigDecimal("-12.345"), new BigDecimal("123456789.123456"));
+
+    private final CurrencyConversionService service = new CurrencyConversionService();
+
+    @Test
+    void matchesTheOriginalArithmeticExactlyForEveryPair() {
+        List<String> codes = new ArrayList<>(ORIGINAL_RATES.keySet());
+        codes.add("usd");
+        codes.add("XYZ");
+        for (String from : codes) {
+            for (String to : codes) {
+                for (BigDecimal amount : AMOUNTS) {
+                    // equals, not compareTo: the scale must match too
+                    assertThat(service.convert(amount, from, to))
+                        .as("%s %s -> %s", amount, from, to)
+                        .isEqualTo(original(amount, from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void snapshotVersionsAreDerivedFromTheRates() {
+        long builtIn = service.currentSnapshot().version();
+        assertThat(new CurrencyConversionService().currentSnapshot().version()).isEqualTo(builtIn);
+
+        Map<CurrencyCode, BigDecimal> rates = new EnumMap<>(service.currentSnapshot().rates());
+        rates.put(CurrencyCode.USD, new BigDecimal("15000"));
+        CurrencyConversionService other = new CurrencyConversionService();
+        other.publish(rates);
+        assertThat(other.currentSnapshot().version()).isNotEqualTo(builtIn);
+
+        rates.put(CurrencyCode.USD, new BigDecimal("16000.00"));
+        other.publish(rates);
+        assertThat(other.currentSnapshot().version()).isEqualTo(builtIn);
+    }
+
+    @Test
+    void bulkConversionMatchesSingleConversions() {
+        for (CurrencyCode from : CurrencyCode.values()) {
+            for (CurrencyCode to : CurrencyCode.values()) {
+                List<BigDecimal> converted = service.convertAll(AMOUNTS, from, to);
+                for (int i = 0; i < AMOUNTS.size(); i++) {
+                    assertThat(converted.get(i)).isEqualTo(service.convert(AMOUNTS.get(i), from.name(), to.name()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void roundsToMinorUnits() {
+        assertThat(CurrencyCode.JPY.round(new BigDecimal("1523.81"))).isEqualTo(new BigDecimal("1524"));
+        assertThat(CurrencyCode.KRW.round(new BigDecimal("13333.50"))).isEqualTo(new BigDecimal("13334"));
+        assertThat(CurrencyCode.USD.round(new BigDecimal("87.4375"))).isEqualTo(new BigDecimal("87.44"));
+        assertThat(CurrencyCode.IDR.round(new BigDecimal("1399000.00"))).isEqualTo(new BigDecimal("1399000"));
+    }
+
+    private static BigDecimal original(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return amount;
+        }
+        BigDecimal fromRate = ORIGINAL_RATES.getOrDefault(fromCurrency.toUpperCase(), BigDecimal.ONE);
+        BigDecimal toRate = ORIGINAL_RATES.getOrDefault(toCurrency.toUpperCase(), BigDecimal.ONE);
+        return amount.multiply(fromRate).divide(toRate, 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,154 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesOneJsonObjectPerEvent() throws Exception {
+        EventLog eventLog = eventLog(1024, EventLog.OverflowPolicy.DROP, DataSize.ofMegabytes(1));
+        eventLog.start();
+        eventLog.publish(EventLog.EventType.ORDER_CREATED, 7L, null, "PENDING", new BigDecimal("150000.00"), "IDR", null);
+        eventLog.publish(EventLog.EventType.PAYMENT_FAILED, 7L, 3L, null, null, null, "Midtrans said \"no\"\nretry later");
+        eventLog.stop();
+
+        List<JsonNode> events = readEvents(dir.resolve("events.log"));
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).get("event").asText()).isEqualTo("order.created");
+        assertThat(events.get(0).get("orderId").asLong()).isEqualTo(7);
+        assertThat(events.get(0).has("paymentId")).isFalse();
+        assertThat(events.get(0).get("amount").decimalValue()).isEqualByComparingTo("150000");
+        assertThat(events.get(1).get("paymentId").asLong()).isEqualTo(3);
+        assertThat(events.get(1).get("detail").asText()).isEqualTo("Midtrans said \"no\"\nretry later");
+        assertThat(meterRegistry.get("events.log.written").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void dropPolicyDiscardsWhenTheQueueIsFull() {
+        EventLog eventLog = eventLog(4, EventLog.OverflowPolicy.DROP, DataSize.ofMegabytes(1));
+        // writer not started, so nothing is drained
+
+        for (int i = 0; i < 10; i++) {
+            eventLog.publish(EventLog.EventType.ORDER_CREATED, (long) i + 1, null, null, null, null, null);
+        }
+
+        assertThat(dropped("queue_full")).isEqualTo(6);
+        assertThat(meterRegistry.get("events.log.queue.size").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void blockPolicyWaitsForSpaceBeforeDropping() {
+        EventLog eventLog = eventLog(2, EventLog.OverflowPolicy.BLOCK, DataSize.ofMegabytes(1));
+
+        for (int i = 0; i < 3; i++) {
+            eventLog.publish(EventLog.EventType.ORDER_CREATED, (long) i + 1, null, null, null, null, null);
+        }
+
+        assertThat(meterRegistry.get("events.log.blocked").counter().count()).isEqualTo(1);
+        assertThat(dropped("block_timeout")).isEqualTo(1);
+        assertThat(dropped("queue_full")).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepTheirOwnOrder() throws Exception {
+        int producers = 8;
+        int perProducer = 20_000;
+        EventLog eventLog = new EventLog(true, dir.resolve("events.log"), 1024, EventLog.OverflowPolicy.BLOCK,
+            Duration.ofSeconds(10), DataSize.ofGigabytes(1), 1, meterRegistry);
+        eventLog.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 1; p <= producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    for (long i = 1; i <= perProducer; i++) {
+                        eventLog.publish(EventLog.EventType.ORDER_CREATED, i, producer, null, null, null, null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        eventLog.stop();
+
+        Map<Long, Long> lastSeen = new HashMap<>();
+        List<String> lines = Files.readAllLines(dir.resolve("events.log"));
+        for (String line : lines) {
+            JsonNode event = objectMapper.readTree(line);
+            long producer = event.get("paymentId").asLong();
+            long sequence = event.get("orderId").asLong();
+            assertThat(sequence).isEqualTo(lastSeen.getOrDefault(producer, 0L) + 1);
+            lastSeen.put(producer, sequence);
+        }
+        assertThat(lines).hasSize(producers * perProducer);
+        assertThat(dropped("block_timeout")).isZero();
+    }
+
+    @Test
+    void rollsFilesBySizeAndKeepsTheConfiguredHistory() throws Exception {
+        EventLog eventLog = eventLog(1024, EventLog.OverflowPolicy.DROP, DataSize.ofKilobytes(1));
+        eventLog.start();
+        for (int i = 0; i < 300; i++) {
+            eventLog.publish(EventLog.EventType.ORDER_CREATED, (long) i + 1, null, "PENDING", null, "IDR", null);
+            Thread.sleep(0, 100_000);
+        }
+        eventLog.stop();
+
+        assertThat(dir.resolve("events.log.1")).exists();
+        assertThat(dir.resolve("events.log.2")).exists();
+        assertThat(dir.resolve("events.log.3")).doesNotExist();
+        for (String name : List.of("events.log", "events.log.1", "events.log.2")) {
+            assertThat(readEvents(dir.resolve(name))).allSatisfy(event ->
+                assertThat(event.get("event").asText()).isEqualTo("order.created"));
+        }
+    }
+
+    private EventLog eventLog(int capacity, EventLog.OverflowPolicy overflow, DataSize maxFileSize) {
+        return new EventLog(true, dir.resolve("events.log"), capacity, overflow, Duration.ofMillis(1),
+            maxFileSize, 2, meterRegistry);
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("events.log.dropped").tag("reason", reason).counter().count();
+    }
+
+    private List<JsonNode> readEvents(Path file) throws Exception {
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            events.add(objectMapper.readTree(line));
+        }
+        return events;
+    }
+}
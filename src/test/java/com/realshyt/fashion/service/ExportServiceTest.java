@@ -0,0 +1,187 @@
+package com.realshyt.fashion.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExportServiceTest {
+
+    // A window no other test writes to
+    private static final LocalDateTime FROM = LocalDateTime.of(1990, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long firstPaid;
+    private Long cancelled;
+    private Long secondPaid;
+    private String email;
+
+    @BeforeEach
+    void createOrdersInTheWindow() {
+        jdbcTemplate.update("DELETE FROM payments WHERE created_at >= ? AND created_at < ?", FROM, TO);
+        jdbcTemplate.update("DELETE FROM orders WHERE created_at >= ? AND created_at < ?", FROM, TO);
+        email = UUID.randomUUID() + "@example.com";
+
+        firstPaid = createOrder(Order.OrderStatus.PROCESSING, FROM.plusHours(1));
+        cancelled = createOrder(Order.OrderStatus.CANCELLED, FROM.plusHours(2));
+        secondPaid = createOrder(Order.OrderStatus.PROCESSING, FROM.plusHours(3));
+        createOrder(Order.OrderStatus.PROCESSING, TO); // end of the window is exclusive
+    }
+
+    @Test
+    void exportsOrdersInTheWindowOldestFirstAsOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportOrders(out, FROM, TO, null);
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(count).isEqualTo(3);
+        assertThat(ndjson).endsWith("\n");
+        List<JsonNode> lines = lines(ndjson);
+        assertThat(lines).extracting(line -> line.get("id").asLong()).containsExactly(firstPaid, cancelled, secondPaid);
+
+        JsonNode first = lines.get(0);
+        assertThat(objectMapper.convertValue(first, Map.class)).containsOnlyKeys(
+            "id", "customerName", "customerEmail", "totalAmount", "currency", "status", "createdAt", "updatedAt");
+        assertThat(first.get("customerEmail").asText()).isEqualTo(email);
+        assertThat(first.get("status").asText()).isEqualTo("PROCESSING");
+        assertThat(first.get("currency").asText()).isEqualTo("IDR");
+        assertThat(first.get("createdAt").asText()).isEqualTo("1990-01-01T01:00:00");
+    }
+
+    @Test
+    void filtersOrdersByStatusAndDate() {
+        assertThat(idsOf(exportOrders(FROM, TO, Order.OrderStatus.PROCESSING))).containsExactly(firstPaid, secondPaid);
+        assertThat(idsOf(exportOrders(FROM, TO, Order.OrderStatus.CANCELLED))).containsExactly(cancelled);
+        assertThat(idsOf(exportOrders(FROM.plusHours(2), FROM.plusHours(3), null))).containsExactly(cancelled);
+        assertThat(exportOrders(FROM, TO, Order.OrderStatus.SHIPPED)).isEmpty();
+    }
+
+    @Test
+    void filtersPaymentsByStatusAndDate() {
+        Long settled = createPayment(firstPaid, Payment.PaymentStatus.SUCCESS, FROM.plusHours(1));
+        Long expired = createPayment(cancelled, Payment.PaymentStatus.EXPIRED, FROM.plusHours(2));
+
+        assertThat(idsOf(exportPayments(FROM, TO, null))).containsExactly(settled, expired);
+        assertThat(idsOf(exportPayments(FROM, TO, Payment.PaymentStatus.SUCCESS))).containsExactly(settled);
+        assertThat(idsOf(exportPayments(FROM.plusHours(2), TO, null))).containsExactly(expired);
+        assertThat(lines(exportPayments(FROM, TO, Payment.PaymentStatus.SUCCESS)).get(0).get("orderId").asLong())
+            .isEqualTo(firstPaid);
+    }
+
+    @Test
+    void rowsAreWrittenAsTheyArePulledInsteadOfCollectedFirst() {
+        int rows = 10_000;
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger pulledAtFirstWrite = new AtomicInteger(-1);
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                pulledAtFirstWrite.compareAndSet(-1, pulled.get());
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                pulledAtFirstWrite.compareAndSet(-1, pulled.get());
+            }
+        };
+
+        ExportService service = new ExportService(null, null, objectMapper);
+        long count = service.writeNdjson(out, IntStream.range(0, rows).boxed()
+            .map(i -> Map.of("id", i, "customerEmail", "customer" + i + "@example.com"))
+            .peek(row -> pulled.incrementAndGet()));
+
+        assertThat(count).isEqualTo(rows);
+        assertThat(pulledAtFirstWrite.get()).isBetween(1, rows - 1);
+    }
+
+    private String exportOrders(LocalDateTime from, LocalDateTime to, Order.OrderStatus status) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(out, from, to, status);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String exportPayments(LocalDateTime from, LocalDateTime to, Payment.PaymentStatus status) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPayments(out, from, to, status);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<Long> idsOf(String ndjson) {
+        return lines(ndjson).stream().map(line -> line.get("id").asLong()).toList();
+    }
+
+    private List<JsonNode> lines(String ndjson) {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            if (!line.isEmpty()) {
+                try {
+                    lines.add(objectMapper.readTree(line));
+                } catch (Exception e) {
+                    throw new AssertionError("Not a JSON line: " + line, e);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private Long createOrder(Order.OrderStatus status, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setCustomerName("Exported Customer");
+        order.setCustomerEmail(email);
+        order.setShippingAddress("Jl. Gatot Subroto 9");
+        order.setTotalAmount(new BigDecimal("350000"));
+        order.setStatus(status);
+        Long id = orderRepository.save(order).getId();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", createdAt, id);
+        return id;
+    }
+
+    private Long createPayment(Long orderId, Payment.PaymentStatus status, LocalDateTime createdAt) {
+        Payment payment = new Payment();
+        payment.setOrder(orderRepository.findById(orderId).orElseThrow());
+        payment.setAmount(new BigDecimal("350000"));
+        payment.setMidtransOrderId("EXPORT-" + orderId);
+        payment.setStatus(status);
+        Long id = paymentRepository.save(payment).getId();
+        jdbcTemplate.update("UPDATE payments SET created_at = ? WHERE id = ?", createdAt, id);
+        return id;
+    }
+}
@@ -0,0 +1,118 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.client.HttpFxRateProvider;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FxRateProviderTest {
+
+    private static final String RATES = """
+        USD=16000
+        EUR=17300
+        GBP=20200
+        SGD=11800
+        MYR=3400
+        AUD=10500
+        JPY=105
+        CNY=2200
+        HKD=2050
+        KRW=12
+        THB=450
+        """;
+
+    private final List<FxRatesChangedEvent> events = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fileProviderSwapsInEditedRates(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("fx-rates.properties");
+        Files.writeString(file, RATES);
+        CurrencyConversionService service = new CurrencyConversionService(
+            Optional.of(new FileFxRateProvider(file)), event -> events.add((FxRatesChangedEvent) event));
+        service.startProvider();
+        try {
+            FxRateSnapshot initial = service.currentSnapshot();
+            assertThat(service.convert(new BigDecimal("10"), "USD", "IDR")).isEqualByComparingTo("160000");
+
+            // An incomplete file is rejected and the current rates stay in place
+            Files.writeString(file, "USD=15000\n");
+            Thread.sleep(500);
+            assertThat(service.currentSnapshot()).isSameAs(initial);
+
+            Files.writeString(file, RATES.replace("USD=16000", "USD=15000"));
+            FxRateSnapshot updated = awaitNewSnapshot(service, initial);
+
+            assertThat(updated.version()).isNotEqualTo(initial.version());
+            assertThat(service.convert(new BigDecimal("10"), "USD", "IDR")).isEqualByComparingTo("150000");
+            // Conversions against the old snapshot are still reproducible
+            assertThat(initial.convert(new BigDecimal("10"), "USD", "IDR")).isEqualByComparingTo("160000");
+            assertThat(events).extracting(FxRatesChangedEvent::snapshot).contains(updated);
+        } finally {
+            service.stopProvider();
+        }
+    }
+
+    @Test
+    void httpProviderPollsRates() throws Exception {
+        AtomicReference<String> body = new AtomicReference<>(json("16000"));
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rates", exchange -> {
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        HttpFxRateProvider provider = new HttpFxRateProvider(WebClient.builder(),
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/rates",
+            Duration.ofMillis(100), Duration.ofSeconds(2));
+        CurrencyConversionService service = new CurrencyConversionService(
+            Optional.of(provider), event -> events.add((FxRatesChangedEvent) event));
+        service.startProvider();
+        try {
+            FxRateSnapshot initial = service.currentSnapshot();
+            assertThat(initial.source()).startsWith("http:");
+
+            body.set(json("17000"));
+            awaitNewSnapshot(service, initial);
+
+            assertThat(service.convert(new BigDecimal("1"), "USD", "IDR")).isEqualByComparingTo("17000");
+        } finally {
+            service.stopProvider();
+            server.stop(0);
+        }
+    }
+
+    private static FxRateSnapshot awaitNewSnapshot(CurrencyConversionService service, FxRateSnapshot previous)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (service.currentSnapshot() == previous && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(service.currentSnapshot()).isNotSameAs(previous);
+        return service.currentSnapshot();
+    }
+
+    private static String json(String usdRate) {
+        return "{\"USD\":" + usdRate + ",\"EUR\":17300,\"GBP\":20200,\"SGD\":11800,\"MYR\":3400,\"AUD\":10500,"
+            + "\"JPY\":105,\"CNY\":2200,\"HKD\":2050,\"KRW\":12,\"THB\":450}";
+    }
+}
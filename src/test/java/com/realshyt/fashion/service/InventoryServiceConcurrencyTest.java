@@ -0,0 +1,68 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InventoryServiceConcurrencyTest {
+
+    private static final int STOCK = 100;
+    private static final int CHECKOUTS = 2000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void parallelCheckoutsNeverOversellALimitedDrop() throws Exception {
+        Long productId = productRepository.save(TestOrders.product("Limited Drop Tee", "500000", "T-Shirts", STOCK)).getId();
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                int customer = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(TestOrders.customer(customer).item(productId, 1).build());
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(CHECKOUTS - STOCK);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isZero();
+    }
+}
@@ -0,0 +1,47 @@
+package com.realshyt.fashion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MidtransSignatureVerifierTest {
+
+    private static final String SERVER_KEY = "SB-Mid-server-test";
+
+    private final MidtransSignatureVerifier verifier = new MidtransSignatureVerifier(SERVER_KEY);
+
+    @Test
+    void acceptsTheMidtransSignature() throws Exception {
+        String signature = sign("ORDER-1-1700000000000" + "200" + "150000.00" + SERVER_KEY);
+
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "150000.00", signature)).isTrue();
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "150000.00", signature.toUpperCase())).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedFieldsAndMalformedSignatures() throws Exception {
+        String signature = sign("ORDER-1-1700000000000" + "200" + "150000.00" + SERVER_KEY);
+
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "1.00", signature)).isFalse();
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "150000.00", signature.substring(2))).isFalse();
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "150000.00", "zz" + signature.substring(2))).isFalse();
+        assertThat(verifier.verify("ORDER-1-1700000000000", "200", "150000.00", null)).isFalse();
+    }
+
+    @Test
+    void handlesNonAsciiAndLongInputs() throws Exception {
+        String orderId = "ORDER-é-" + "x".repeat(500);
+        String signature = sign(orderId + "201" + "99000.00" + SERVER_KEY);
+
+        assertThat(verifier.verify(orderId, "201", "99000.00", signature)).isTrue();
+    }
+
+    private static String sign(String input) throws Exception {
+        return HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-512").digest(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}
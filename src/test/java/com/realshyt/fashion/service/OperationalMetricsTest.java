@@ -0,0 +1,93 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class OperationalMetricsTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OperationalMetrics operationalMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void checkoutsAreTimedThroughCommitOrRollback() {
+        Long productId = createProduct(1);
+        long committed = timerCount("committed");
+        long rolledBack = timerCount("rolled_back");
+
+        orderService.createOrder(newOrder(productId, 1));
+        assertThatThrownBy(() -> orderService.createOrder(newOrder(productId, 1)))
+            .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(timerCount("committed")).isEqualTo(committed + 1);
+        assertThat(timerCount("rolled_back")).isEqualTo(rolledBack + 1);
+    }
+
+    @Test
+    void reservedUnitsGaugeFollowsUnpaidOrders() {
+        Long productId = createProduct(10);
+        operationalMetrics.refresh();
+        double before = meterRegistry.get("inventory.reserved.units").gauge().value();
+
+        Order order = orderService.createOrder(newOrder(productId, 3));
+        operationalMetrics.refresh();
+        assertThat(meterRegistry.get("inventory.reserved.units").gauge().value()).isEqualTo(before + 3);
+
+        orderService.cancelOrder(order.getId());
+        operationalMetrics.refresh();
+        assertThat(meterRegistry.get("inventory.reserved.units").gauge().value()).isEqualTo(before);
+    }
+
+    @Test
+    void hotPathHistogramsAreExposedToPrometheus() throws Exception {
+        orderService.createOrder(newOrder(createProduct(1), 1));
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+            .contains("orders_create_seconds_bucket")
+            .contains("spring_data_repository_invocations_seconds_bucket")
+            .contains("db_pool_saturation")
+            .contains("orders_pending_payment");
+    }
+
+    private long timerCount(String outcome) {
+        var timer = meterRegistry.find("orders.create").tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private Long createProduct(int stock) {
+        return productRepository.save(TestOrders.product("Metered Cap", "150000", "Accessories", stock)).getId();
+    }
+
+    private Order newOrder(Long productId, int quantity) {
+        return TestOrders.order("Metrics Check", "metrics@example.com").item(productId, quantity).build();
+    }
+}
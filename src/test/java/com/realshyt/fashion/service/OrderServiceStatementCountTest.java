@@ -0,0 +1,118 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.config.SqlMonitor;
+import com.realshyt.fashion.dto.OrderResponse;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderServiceStatementCountTest {
+
+    private static final int CART_SIZE = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    private List<Long> productIds;
+
+    @BeforeEach
+    void createProducts() {
+        productIds = createProducts(CART_SIZE);
+    }
+
+    @Test
+    void createOrderNeedsOneRoundTripPerTableRegardlessOfCartSize() {
+        List<String> executed = statementsOf(() -> orderService.createOrder(newOrder()));
+
+        assertThat(count(executed, productLookup())).isEqualTo(1);
+        assertThat(count(executed, update("products"))).isEqualTo(1);
+        assertThat(count(executed, insertInto("orders"))).isEqualTo(1);
+        assertThat(count(executed, insertInto("order_items"))).isEqualTo(1);
+    }
+
+    @Test
+    void cancelOrderReleasesStockInOneRoundTrip() {
+        Long orderId = orderService.createOrder(newOrder()).getId();
+
+        List<String> executed = statementsOf(() -> orderService.cancelOrder(orderId));
+
+        assertThat(count(executed, productLookup())).isZero();
+        assertThat(count(executed, update("products"))).isEqualTo(1);
+        assertThat(count(executed, selectFrom("order_items"))).isEqualTo(1);
+    }
+
+    @Test
+    void orderDetailWithFiftyItemsIsASingleQuery() {
+        Long orderId = orderService.createOrder(newOrder(createProducts(50))).getId();
+
+        AtomicReference<OrderResponse> order = new AtomicReference<>();
+        List<String> executed = statementsOf(() -> order.set(orderService.getOrderById(orderId).orElseThrow()));
+
+        assertThat(order.get().getOrderItems()).hasSize(50);
+        assertThat(order.get().getOrderItems()).allSatisfy(item -> assertThat(item.getProductName()).isNotBlank());
+        assertThat(executed).hasSize(1);
+    }
+
+    // Statements sent by this thread only, normalized for matching
+    private List<String> statementsOf(Runnable action) {
+        return sqlMonitor.statementsOf(action).stream()
+            .map(sql -> sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT))
+            .toList();
+    }
+
+    private static long count(List<String> executed, Predicate<String> sql) {
+        return executed.stream().filter(sql).count();
+    }
+
+    // Lookups by id; the background catalog snapshot rebuild reads the whole table without a where clause
+    private static Predicate<String> productLookup() {
+        return selectFrom("products").and(sql -> sql.contains(" where "));
+    }
+
+    private static Predicate<String> selectFrom(String table) {
+        return sql -> sql.startsWith("select") && sql.contains(" from " + table + " ");
+    }
+
+    private static Predicate<String> update(String table) {
+        return sql -> sql.startsWith("update " + table + " ");
+    }
+
+    private static Predicate<String> insertInto(String table) {
+        return sql -> sql.startsWith("insert into " + table + " ");
+    }
+
+    private List<Long> createProducts(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(productRepository.save(TestOrders.product("Statement Count Item " + i, "100000", "Accessories", 10)).getId());
+        }
+        return ids;
+    }
+
+    private Order newOrder() {
+        return newOrder(productIds);
+    }
+
+    private Order newOrder(List<Long> productIds) {
+        return TestOrders.order("Statement Counter", "statements@example.com").items(productIds).build();
+    }
+}
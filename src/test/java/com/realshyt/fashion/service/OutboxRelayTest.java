@@ -0,0 +1,191 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OutboxEvent;
+import com.realshyt.fashion.repository.OutboxEventRepository;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "outbox.sink=recording",
+    "outbox.poll-interval-ms=3600000",
+    "outbox.retry.initial-backoff=0s",
+    "outbox.max-attempts=3"
+})
+class OutboxRelayTest {
+
+    @TestConfiguration
+    static class RecordingSinkConfig {
+
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void deliver(List<OutboxEvent> events) throws IOException {
+            if (failing) {
+                throw new IOException("sink unavailable");
+            }
+            events.forEach(event -> delivered.add(event.getOrderId() + ":" + event.getEventType()));
+        }
+    }
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private RecordingSink sink;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private Long orderId;
+
+    @BeforeEach
+    void createOrder() {
+        Long productId = productRepository.save(TestOrders.product("Outbox Test Hoodie", "450000", "Hoodies", 5)).getId();
+        orderId = orderService.createOrder(TestOrders.order("Outbox Tester", "outbox@example.com").item(productId, 1).build()).getId();
+    }
+
+    @AfterEach
+    void resetSink() {
+        sink.failing = false;
+    }
+
+    @Test
+    void paidOrderIsDeliveredOnce() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.PROCESSING);
+
+        List<OutboxEvent> events = outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId);
+        assertThat(events).extracting(OutboxEvent::getEventType).containsExactly("order.processing");
+        assertThat(events.get(0).getPayload()).contains("\"previousStatus\":\"PENDING\"", "\"customerEmail\":\"outbox@example.com\"");
+
+        relay.relay();
+        relay.relay();
+
+        assertThat(deliveredForOrder()).containsExactly("order.processing");
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId))
+            .extracting(OutboxEvent::getStatus).containsExactly(OutboxEvent.OutboxStatus.DELIVERED);
+    }
+
+    @Test
+    void otherStatusChangesWriteNoEvent() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.SHIPPED);
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.SHIPPED);
+
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId)).isEmpty();
+    }
+
+    @Test
+    void laterEventsWaitForEarlierOnesOfTheSameOrder() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.PROCESSING);
+        orderService.cancelOrder(orderId);
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId))
+            .extracting(OutboxEvent::getOrderSequence).containsExactly(1, 2);
+
+        sink.failing = true;
+        relay.relay();
+        assertThat(deliveredForOrder()).isEmpty();
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId))
+            .extracting(OutboxEvent::getAttempts).containsExactly(1, 0);
+
+        sink.failing = false;
+        relay.relay();
+        relay.relay();
+
+        assertThat(deliveredForOrder()).containsExactly("order.processing", "order.cancelled");
+    }
+
+    @Test
+    void sequenceKeepsCountingAfterDeliveredEventsArePurged() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.PROCESSING);
+        relay.relay();
+        OutboxEvent delivered = outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId).get(0);
+        delivered.setDeliveredAt(LocalDateTime.now().minusDays(30));
+        outboxEventRepository.save(delivered);
+        relay.purgeDelivered();
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId)).isEmpty();
+
+        orderService.cancelOrder(orderId);
+
+        OutboxEvent cancelled = outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId).get(0);
+        assertThat(cancelled.getOrderSequence()).isEqualTo(2);
+        assertThat(OutboxSink.toJson(cancelled)).contains("\"orderId\":" + orderId + ",\"sequence\":2,");
+    }
+
+    @Test
+    void eventFailingEveryAttemptIsMarkedFailedAndHoldsBackTheOrder() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.PROCESSING);
+        orderService.cancelOrder(orderId);
+
+        sink.failing = true;
+        for (int i = 0; i < 3; i++) {
+            relay.relay();
+        }
+        sink.failing = false;
+        relay.relay();
+
+        assertThat(deliveredForOrder()).isEmpty();
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId)).extracting(OutboxEvent::getStatus)
+            .containsExactly(OutboxEvent.OutboxStatus.FAILED, OutboxEvent.OutboxStatus.PENDING);
+    }
+
+    @Test
+    void leasedEventIsLeftAloneUntilTheLeaseRunsOut() {
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.PROCESSING);
+
+        // As left behind by a relay that claimed the event and died before recording the outcome
+        OutboxEvent event = outboxEventRepository.findByOrderIdOrderByOrderSequence(orderId).get(0);
+        event.setLeaseUntil(LocalDateTime.now().plusHours(1));
+        outboxEventRepository.save(event);
+        relay.relay();
+        assertThat(deliveredForOrder()).isEmpty();
+
+        event = outboxEventRepository.findById(event.getId()).orElseThrow();
+        event.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        outboxEventRepository.save(event);
+        relay.relay();
+        assertThat(deliveredForOrder()).containsExactly("order.processing");
+        assertThat(outboxEventRepository.findById(event.getId()).orElseThrow().getLeaseUntil()).isNull();
+    }
+
+    private List<String> deliveredForOrder() {
+        String prefix = orderId + ":";
+        return sink.delivered.stream()
+            .filter(event -> event.startsWith(prefix))
+            .map(event -> event.substring(prefix.length()))
+            .toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void historyAndReplayReturnWhatWasAppended() throws Exception {
+        PaymentJournal journal = open(DataSize.ofMegabytes(1));
+        journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, 7, 3L, Payment.PaymentStatus.PENDING,
+            Order.OrderStatus.PENDING_PAYMENT, new BigDecimal("150000.00"), "ORDER-7-1", null);
+        journal.append(PaymentJournal.RecordType.NOTIFICATION, 7, 3L, null, null, null, "ORDER-7-1", "settlement/200");
+        journal.append(PaymentJournal.RecordType.PAYMENT_STATUS, 7, 3L, Payment.PaymentStatus.SUCCESS,
+            Order.OrderStatus.PROCESSING, new BigDecimal("150000.00"), "ORDER-7-1", "settlement");
+        journal.append(PaymentJournal.RecordType.ORDER_STATUS, 8, null, null, Order.OrderStatus.CANCELLED, null, null, "cancelled");
+
+        List<JournalRecord> history = journal.history("ORDER-7-1");
+        assertThat(history).extracting(JournalRecord::type).containsExactly(
+            PaymentJournal.RecordType.PAYMENT_CREATED, PaymentJournal.RecordType.NOTIFICATION, PaymentJournal.RecordType.PAYMENT_STATUS);
+        assertThat(history.get(0).amount()).isEqualByComparingTo("150000");
+        assertThat(history.get(0).detail()).isNull();
+        assertThat(history.get(1).detail()).isEqualTo("settlement/200");
+        assertThat(history.get(1).paymentStatus()).isNull();
+        assertThat(history.get(2).orderStatus()).isEqualTo(Order.OrderStatus.PROCESSING);
+
+        List<String> replayed = new ArrayList<>();
+        assertThat(journal.replay(record -> replayed.add(record.type() + ":" + record.orderId()))).isEqualTo(4);
+        assertThat(replayed).containsExactly("PAYMENT_CREATED:7", "NOTIFICATION:7", "PAYMENT_STATUS:7", "ORDER_STATUS:8");
+        journal.close();
+    }
+
+    @Test
+    void reopeningRebuildsTheIndexAndContinuesAfterTheLastRecord() throws Exception {
+        PaymentJournal journal = open(DataSize.ofMegabytes(1));
+        journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, 1, 1L, Payment.PaymentStatus.PENDING,
+            Order.OrderStatus.PENDING_PAYMENT, new BigDecimal("100"), "ORDER-1-1", null);
+        journal.close();
+
+        PaymentJournal reopened = open(DataSize.ofMegabytes(1));
+        reopened.append(PaymentJournal.RecordType.PAYMENT_STATUS, 1, 1L, Payment.PaymentStatus.FAILED,
+            Order.OrderStatus.CANCELLED, new BigDecimal("100"), "ORDER-1-1", "deny");
+
+        assertThat(reopened.history("ORDER-1-1")).extracting(JournalRecord::paymentStatus)
+            .containsExactly(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.FAILED);
+        assertThat(reopened.replay(record -> { })).isEqualTo(2);
+        reopened.close();
+    }
+
+    @Test
+    void tornLastRecordIsDiscardedOnOpen() throws Exception {
+        PaymentJournal journal = open(DataSize.ofMegabytes(1));
+        journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, 1, 1L, Payment.PaymentStatus.PENDING,
+            Order.OrderStatus.PENDING_PAYMENT, new BigDecimal("100"), "ORDER-1-1", null);
+        journal.append(PaymentJournal.RecordType.PAYMENT_STATUS, 1, 1L, Payment.PaymentStatus.SUCCESS,
+            Order.OrderStatus.PROCESSING, new BigDecimal("100"), "ORDER-1-1", "settlement");
+        journal.close();
+
+        // Simulate a crash halfway through the second record: its payload no longer matches the CRC
+        Path segment = dir.resolve("00000000000000000000.journal");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            long second = PaymentJournal.HEADER_LENGTH + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}), second + PaymentJournal.HEADER_LENGTH + 10);
+        }
+
+        PaymentJournal reopened = open(DataSize.ofMegabytes(1));
+        assertThat(reopened.history("ORDER-1-1")).extracting(JournalRecord::type)
+            .containsExactly(PaymentJournal.RecordType.PAYMENT_CREATED);
+        assertThat(reopened.isComplete()).isFalse();
+
+        reopened.append(PaymentJournal.RecordType.PAYMENT_STATUS, 1, 1L, Payment.PaymentStatus.EXPIRED,
+            Order.OrderStatus.CANCELLED, new BigDecimal("100"), "ORDER-1-1", "expire");
+        List<Payment.PaymentStatus> statuses = new ArrayList<>();
+        assertThat(reopened.replay(record -> statuses.add(record.paymentStatus()))).isEqualTo(2);
+        assertThat(statuses).containsExactly(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.EXPIRED);
+        reopened.close();
+    }
+
+    @Test
+    void rollsToNewSegmentsWhenFull() throws Exception {
+        PaymentJournal journal = open(DataSize.ofBytes(256));
+        for (int i = 0; i < 20; i++) {
+            journal.append(PaymentJournal.RecordType.NOTIFICATION, 5, 2L, null, null, null, "ORDER-5-1", "pending/201");
+        }
+        journal.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".journal")).count()).isGreaterThan(1);
+        }
+        PaymentJournal reopened = open(DataSize.ofBytes(256));
+        assertThat(reopened.history("ORDER-5-1")).hasSize(20);
+        assertThat(reopened.replay(record -> { })).isEqualTo(20);
+        reopened.close();
+    }
+
+    @Test
+    void replayerKeepsTheLastStatusPerOrder() throws Exception {
+        PaymentJournal journal = open(DataSize.ofMegabytes(1));
+        journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, 1, 1L, Payment.PaymentStatus.PENDING,
+            Order.OrderStatus.PENDING_PAYMENT, new BigDecimal("100"), "ORDER-1-1", null);
+        journal.append(PaymentJournal.RecordType.PAYMENT_CREATED, 2, 2L, Payment.PaymentStatus.PENDING,
+            Order.OrderStatus.PENDING_PAYMENT, new BigDecimal("200"), "ORDER-2-1", null);
+        journal.append(PaymentJournal.RecordType.PAYMENT_STATUS, 1, 1L, Payment.PaymentStatus.SUCCESS,
+            Order.OrderStatus.PROCESSING, new BigDecimal("100"), "ORDER-1-1", "settlement");
+        journal.append(PaymentJournal.RecordType.ORDER_EXPIRED, 2, null, Payment.PaymentStatus.EXPIRED,
+            Order.OrderStatus.CANCELLED, null, null, "reservation expired");
+        journal.append(PaymentJournal.RecordType.ORDER_STATUS, 1, null, null, Order.OrderStatus.SHIPPED, null, null, null);
+
+        PaymentJournalReplayer.ReplayedState state = new PaymentJournalReplayer(journal, null, null, null).replay();
+
+        assertThat(state.records()).isEqualTo(5);
+        assertThat(state.orders()).containsEntry(1L, Order.OrderStatus.SHIPPED).containsEntry(2L, Order.OrderStatus.CANCELLED);
+        assertThat(state.payments()).containsEntry(1L, Payment.PaymentStatus.SUCCESS).containsEntry(2L, Payment.PaymentStatus.EXPIRED);
+        journal.close();
+    }
+
+    @Test
+    void uncleanShutdownMarksTheJournalIncompleteAndBlocksARebuild() throws Exception {
+        PaymentJournal journal = open(DataSize.ofMegabytes(1));
+        assertThat(journal.isComplete()).isTrue();
+        journal.close();
+
+        PaymentJournal cleanlyReopened = open(DataSize.ofMegabytes(1));
+        assertThat(cleanlyReopened.isComplete()).isTrue();
+        cleanlyReopened.close();
+
+        // What a crash leaves behind
+        Files.createFile(dir.resolve("journal.open"));
+        PaymentJournal afterCrash = open(DataSize.ofMegabytes(1));
+        assertThat(afterCrash.isComplete()).isFalse();
+        assertThatThrownBy(() -> new PaymentJournalReplayer(afterCrash, null, null, null).rebuildStatusTables())
+            .isInstanceOf(IllegalStateException.class);
+        afterCrash.close();
+
+        PaymentJournal later = open(DataSize.ofMegabytes(1));
+        assertThat(later.isComplete()).isFalse();
+        later.close();
+    }
+
+    @Test
+    void rebuildOnlyMovesStatusesForward() {
+        assertThat(PaymentJournalReplayer.orderStatusesBefore(Order.OrderStatus.PROCESSING))
+            .containsExactlyInAnyOrder(Order.OrderStatus.PENDING, Order.OrderStatus.PENDING_PAYMENT);
+        assertThat(PaymentJournalReplayer.orderStatusesBefore(Order.OrderStatus.PENDING)).isEmpty();
+        assertThat(PaymentJournalReplayer.orderStatusesBefore(Order.OrderStatus.CANCELLED))
+            .doesNotContain(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED)
+            .contains(Order.OrderStatus.PROCESSING);
+
+        assertThat(PaymentJournalReplayer.paymentStatusesBefore(Payment.PaymentStatus.PENDING)).isEmpty();
+        assertThat(PaymentJournalReplayer.paymentStatusesBefore(Payment.PaymentStatus.SUCCESS))
+            .doesNotContain(Payment.PaymentStatus.EXPIRED, Payment.PaymentStatus.FAILED);
+        assertThat(PaymentJournalReplayer.paymentStatusesBefore(Payment.PaymentStatus.EXPIRED))
+            .doesNotContain(Payment.PaymentStatus.SUCCESS);
+    }
+
+    private PaymentJournal open(DataSize segmentSize) throws Exception {
+        PaymentJournal journal = new PaymentJournal(true, dir, segmentSize, false, new SimpleMeterRegistry());
+        journal.open();
+        return journal;
+    }
+}
@@ -0,0 +1,150 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.dto.MidtransNotification;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.OutboxEventRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "payments.notifications.poll-interval-ms=3600000")
+class PaymentNotificationServiceTest {
+
+    @Autowired
+    private PaymentNotificationService notificationService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Value("${midtrans.server-key}")
+    private String serverKey;
+
+    private Long productId;
+    private Order order;
+    private String midtransOrderId;
+
+    @BeforeEach
+    void createOrderWithPayment() {
+        productId = productRepository.save(TestOrders.product("Webhook Test Cap", "300000", "Accessories", 5)).getId();
+        order = orderService.createOrder(TestOrders.order("Webhook Tester", "webhook@example.com").item(productId, 1).build());
+
+        midtransOrderId = "ORDER-" + order.getId() + "-test";
+        Payment payment = new Payment();
+        payment.setOrder(order);
+        payment.setAmount(new BigDecimal("300000"));
+        payment.setMidtransOrderId(midtransOrderId);
+        paymentRepository.save(payment);
+    }
+
+    @Test
+    void duplicateDeliveriesAreQueuedOnce() throws Exception {
+        assertThat(notificationService.receive(notification("settlement", "200"))).isTrue();
+        assertThat(notificationService.receive(notification("settlement", "200"))).isFalse();
+
+        assertThat(notificationService.processBatch()).isEqualTo(1);
+        assertThat(notificationService.processBatch()).isZero();
+    }
+
+    @Test
+    void lateNotificationsDoNotMoveThePaymentBackwards() throws Exception {
+        notificationService.receive(notification("pending", "201"));
+        notificationService.receive(notification("settlement", "200"));
+        notificationService.processBatch();
+
+        assertThat(paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus())
+            .isEqualTo(Payment.PaymentStatus.SUCCESS);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+            .isEqualTo(Order.OrderStatus.PROCESSING);
+
+        notificationService.receive(notification("expire", "407"));
+        notificationService.processBatch();
+
+        assertThat(paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus())
+            .isEqualTo(Payment.PaymentStatus.SUCCESS);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+            .isEqualTo(Order.OrderStatus.PROCESSING);
+    }
+
+    @Test
+    void settlementAfterCancellationFlagsARefundInsteadOfRevivingTheOrder() throws Exception {
+        orderService.cancelOrder(order.getId());
+        assertThat(paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus())
+            .isEqualTo(Payment.PaymentStatus.EXPIRED);
+
+        notificationService.receive(notification("settlement", "200"));
+        notificationService.processBatch();
+
+        assertThat(paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus())
+            .isEqualTo(Payment.PaymentStatus.REFUND_REQUIRED);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+            .isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void settlementAfterCaptureDoesNotReviveACancelledOrder() throws Exception {
+        notificationService.receive(notification("capture", "200"));
+        notificationService.processBatch();
+        orderService.cancelOrder(order.getId());
+        int events = outboxEventRepository.findByOrderIdOrderByOrderSequence(order.getId()).size();
+
+        notificationService.receive(notification("settlement", "200"));
+        notificationService.processBatch();
+
+        assertThat(paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus())
+            .isEqualTo(Payment.PaymentStatus.SUCCESS);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+            .isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(outboxEventRepository.findByOrderIdOrderByOrderSequence(order.getId())).hasSize(events);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsInvalidSignatures() throws Exception {
+        MidtransNotification forged = notification("settlement", "200");
+        forged.setGross_amount("1.00");
+
+        assertThatThrownBy(() -> notificationService.receive(forged)).hasMessageContaining("Invalid signature");
+    }
+
+    private MidtransNotification notification(String transactionStatus, String statusCode) throws Exception {
+        MidtransNotification notification = new MidtransNotification();
+        notification.setOrder_id(midtransOrderId);
+        notification.setTransaction_status(transactionStatus);
+        notification.setStatus_code(statusCode);
+        notification.setGross_amount("300000.00");
+        notification.setPayment_type("bank_transfer");
+        notification.setTransaction_time("2025-01-15 10:00:00");
+        byte[] digest = MessageDigest.getInstance("SHA-512").digest(
+            (midtransOrderId + statusCode + "300000.00" + serverKey).getBytes(StandardCharsets.UTF_8));
+        notification.setSignature_key(HexFormat.of().formatHex(digest));
+        return notification;
+    }
+}
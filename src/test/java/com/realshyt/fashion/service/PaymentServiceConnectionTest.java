@@ -0,0 +1,138 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.dto.PaymentRequest;
+import com.realshyt.fashion.dto.PaymentResponse;
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.repository.PaymentRepository;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.MidtransStubServer;
+import com.realshyt.fashion.support.TestOrders;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PaymentServiceConnectionTest {
+
+    private static final int CONCURRENT_PAYMENTS = 20;
+
+    private static final MidtransStubServer MIDTRANS = startStub();
+
+    @DynamicPropertySource
+    static void midtransProperties(DynamicPropertyRegistry registry) {
+        registry.add("midtrans.api-url", MIDTRANS::url);
+        registry.add("midtrans.status-api-url", MIDTRANS::statusUrl);
+        registry.add("midtrans.client.max-retries", () -> "0");
+        // Keep the expiry job and gauge refresh from borrowing a connection while pool occupancy is sampled
+        registry.add("orders.reservation.expiry-interval-ms", () -> "3600000");
+        registry.add("metrics.gauges.refresh-interval-ms", () -> "3600000");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        MIDTRANS.close();
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void noConnectionIsHeldWhileMidtransResponds() throws Exception {
+        Long productId = createProduct();
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_PAYMENTS; i++) {
+            orderIds.add(orderService.createOrder(newOrder(i, productId)).getId());
+        }
+
+        MIDTRANS.holdResponses();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_PAYMENTS);
+        try {
+            List<Future<PaymentResponse>> futures = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                futures.add(executor.submit(() -> paymentService.createPayment(paymentRequest(orderId))));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (MIDTRANS.inFlight() < CONCURRENT_PAYMENTS && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(MIDTRANS.inFlight()).isEqualTo(CONCURRENT_PAYMENTS);
+            // Previously each in-flight payment pinned one pooled connection for the whole call
+            assertThat(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections()).isZero();
+
+            MIDTRANS.releaseResponses();
+            for (Future<PaymentResponse> future : futures) {
+                assertThat(future.get(30, TimeUnit.SECONDS).getSnapToken()).startsWith("stub-token-");
+            }
+        } finally {
+            MIDTRANS.releaseResponses();
+            executor.shutdownNow();
+        }
+
+        assertThat(orderIds).allSatisfy(orderId ->
+            assertThat(paymentRepository.findByOrderId(orderId).orElseThrow().getSnapToken()).isNotBlank());
+    }
+
+    @Test
+    void failedMidtransCallRemovesThePaymentIntent() {
+        Long orderId = orderService.createOrder(newOrder(0, createProduct())).getId();
+        MIDTRANS.failNext(1, 400);
+
+        assertThatThrownBy(() -> paymentService.createPayment(paymentRequest(orderId)))
+            .hasMessageContaining("Failed to create payment");
+        assertThat(paymentRepository.existsByOrderId(orderId)).isFalse();
+
+        assertThat(paymentService.createPayment(paymentRequest(orderId)).getSnapToken()).isNotBlank();
+        assertThatThrownBy(() -> paymentService.createPayment(paymentRequest(orderId)))
+            .hasMessageContaining("Payment already exists");
+    }
+
+    private static MidtransStubServer startStub() {
+        try {
+            return MidtransStubServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Long createProduct() {
+        return productRepository.save(TestOrders.product("Payment Test Jacket", "750000", "Jackets", CONCURRENT_PAYMENTS)).getId();
+    }
+
+    private static PaymentRequest paymentRequest(Long orderId) {
+        return new PaymentRequest(orderId, "Payment Tester", "payments@example.com", "081234567890");
+    }
+
+    private static Order newOrder(int customer, Long productId) {
+        return TestOrders.customer(customer).item(productId, 1).build();
+    }
+}
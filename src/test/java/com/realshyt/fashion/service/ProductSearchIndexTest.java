@@ -0,0 +1,88 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Product;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(null);
+
+    @Test
+    void exactMatchesRankByTermsMatchedThenFieldWeight() {
+        index.index(product(1L, "Black Hoodie", "Hoodies", null));
+        index.index(product(2L, "Grey Hoodie", "Hoodies", null));
+        index.index(product(3L, "Black Tee", "T-Shirts", null));
+        index.index(product(4L, "Trucker Jacket", "Outerwear", "Washed denim"));
+        index.index(product(5L, "Denim Jacket", "Outerwear", null));
+
+        assertThat(index.search("black hoodie", 10)).containsExactly(1L, 2L, 3L);
+        assertThat(index.search("DENIM", 10)).containsExactly(5L, 4L);
+        assertThat(index.search("black hoodie", 1)).containsExactly(1L);
+    }
+
+    @Test
+    void prefixesMatchForTypeahead() {
+        index.index(product(1L, "Oversized Hoodie", "Hoodies", null));
+        index.index(product(2L, "Hooded Parka", "Outerwear", null));
+        index.index(product(3L, "Cargo Pants", "Bottoms", null));
+
+        assertThat(index.search("hood", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("over", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void termsOfFourOrMoreCharactersMatchWithinOneEdit() {
+        index.index(product(1L, "Hoodie", "Tops", null));
+        index.index(product(2L, "Tee", "Tops", null));
+
+        assertThat(index.search("hodie", 10)).containsExactly(1L);   // delete
+        assertThat(index.search("hoodiee", 10)).containsExactly(1L); // insert
+        assertThat(index.search("hoodle", 10)).containsExactly(1L);  // substitute
+        assertThat(index.search("hoodei", 10)).containsExactly(1L);  // swap
+        assertThat(index.search("hdoei", 10)).isEmpty();
+        assertThat(index.search("tea", 10)).isEmpty();               // too short for typo matching
+    }
+
+    @Test
+    void updatesAndDeletesDropStalePostings() {
+        index.index(product(1L, "Denim Jacket", "Outerwear", null));
+        index.index(product(1L, "Linen Shirt", "Tops", null));
+
+        assertThat(index.search("denim", 10)).isEmpty();
+        assertThat(index.search("denin", 10)).isEmpty();
+        assertThat(index.search("outerwear", 10)).isEmpty();
+        assertThat(index.search("linen", 10)).containsExactly(1L);
+
+        Product inactive = product(1L, "Linen Shirt", "Tops", null);
+        inactive.setIsActive(false);
+        index.index(inactive);
+        assertThat(index.search("linen", 10)).isEmpty();
+
+        index.index(product(2L, "Linen Shirt", "Tops", null));
+        index.remove(2L);
+        assertThat(index.search("linen", 10)).isEmpty();
+        assertThat(index.search("linn", 10)).isEmpty();
+    }
+
+    @Test
+    void withinOneEditCoversInsertDeleteSubstituteAndSwap() {
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jacket")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jackett")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jacet")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jocket")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jakcet")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jokcet")).isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("jacket", "jack")).isFalse();
+        assertThat(ProductSearchIndex.tokenize("Slim-fit Jeans, 32\"")).containsExactly("slim", "fit", "jeans", "32");
+    }
+
+    private static Product product(Long id, String name, String category, String description) {
+        Product product = TestOrders.product(name, "100000", category, 1);
+        product.setId(id);
+        product.setDescription(description);
+        return product;
+    }
+}
@@ -0,0 +1,139 @@
+package com.realshyt.fashion.service;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.Payment;
+import com.realshyt.fashion.repository.OrderRepository;
+import com.realshyt.fashion.repository.PaymentRepository;
+import com.realshyt.fashion.repository.ProductRepository;
+import com.realshyt.fashion.support.TestOrders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "orders.reservation.expiry-interval-ms=3600000")
+class ReservationExpiryServiceTest {
+
+    // Orders are backdated far past any other test's orders, so only this test's orders are expired
+    private static final LocalDateTime CREATED = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime CUTOFF = CREATED.plusMinutes(1);
+
+    @Autowired
+    private ReservationExpiryService expiryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+    private Long paidOrderId;
+    private Long unpaidOrderId;
+    private String midtransOrderId;
+
+    @BeforeEach
+    void createExpiredOrders() {
+        productId = productRepository.save(TestOrders.product("Expiring Tee", "200000", "T-Shirts", 10)).getId();
+        Order paidOrder = orderService.createOrder(TestOrders.order("Slow Payer", "slow@example.com").item(productId, 2).build());
+        Order unpaidOrder = orderService.createOrder(TestOrders.order("No Payer", "none@example.com").item(productId, 3).build());
+        paidOrderId = paidOrder.getId();
+        unpaidOrderId = unpaidOrder.getId();
+
+        midtransOrderId = "ORDER-" + paidOrderId + "-expiry";
+        Payment payment = new Payment();
+        payment.setOrder(paidOrder);
+        payment.setAmount(new BigDecimal("400000"));
+        payment.setMidtransOrderId(midtransOrderId);
+        paymentRepository.save(payment);
+
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id IN (?, ?)", CREATED, paidOrderId, unpaidOrderId);
+    }
+
+    @Test
+    void expiresUnpaidOrdersTheirPaymentsAndReleasesStock() {
+        assertThat(stock()).isEqualTo(5);
+
+        assertThat(expiryService.expireBatch(CUTOFF)).isEqualTo(2);
+
+        assertThat(status(paidOrderId)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(status(unpaidOrderId)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(paymentStatus()).isEqualTo(Payment.PaymentStatus.EXPIRED);
+        assertThat(stock()).isEqualTo(10);
+        assertThat(expiryService.expireBatch(CUTOFF)).isZero();
+    }
+
+    @Test
+    void ordersWhosePaymentAnotherWorkerHoldsAreSkipped() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Stands in for a notification worker applying a settlement to the payment
+            Future<?> worker = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                paymentRepository.findByMidtransOrderIdInForUpdate(List.of(midtransOrderId));
+                locked.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(locked.await(30, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(expiryService.expireBatch(CUTOFF)).isEqualTo(1);
+            assertThat(status(paidOrderId)).isEqualTo(Order.OrderStatus.PENDING);
+            assertThat(paymentStatus()).isEqualTo(Payment.PaymentStatus.PENDING);
+            assertThat(status(unpaidOrderId)).isEqualTo(Order.OrderStatus.CANCELLED);
+            assertThat(stock()).isEqualTo(8);
+
+            release.countDown();
+            worker.get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(expiryService.expireBatch(CUTOFF)).isEqualTo(1);
+        assertThat(status(paidOrderId)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(paymentStatus()).isEqualTo(Payment.PaymentStatus.EXPIRED);
+        assertThat(stock()).isEqualTo(10);
+    }
+
+    private Order.OrderStatus status(Long orderId) {
+        return orderRepository.findById(orderId).orElseThrow().getStatus();
+    }
+
+    private Payment.PaymentStatus paymentStatus() {
+        return paymentRepository.findByMidtransOrderId(midtransOrderId).orElseThrow().getStatus();
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+}
@@ -0,0 +1,151 @@
+package com.realshyt.fashion.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Midtrans Snap API that can inject latency and error responses.
+ */
+public class MidtransStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger statusLookups = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Integer> scriptedStatuses = new ConcurrentLinkedQueue<>();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int defaultStatus = 200;
+    private volatile int lookupStatus = 404;
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    private MidtransStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static MidtransStubServer start() throws IOException {
+        return new MidtransStubServer();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/snap/v1/transactions";
+    }
+
+    public String statusUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v2";
+    }
+
+    public MidtransStubServer latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public MidtransStubServer failNext(int count, int status) {
+        for (int i = 0; i < count; i++) {
+            scriptedStatuses.add(status);
+        }
+        return this;
+    }
+
+    public MidtransStubServer alwaysRespondWith(int status) {
+        this.defaultStatus = status;
+        return this;
+    }
+
+    /**
+     * HTTP status of transaction status lookups: 404 (the default) when the transaction is unknown
+     */
+    public MidtransStubServer lookupRespondsWith(int status) {
+        this.lookupStatus = status;
+        return this;
+    }
+
+    /**
+     * Hold every response until {@link #releaseResponses()} is called
+     */
+    public MidtransStubServer holdResponses() {
+        gate = new CountDownLatch(1);
+        return this;
+    }
+
+    public void releaseResponses() {
+        gate.countDown();
+    }
+
+    /**
+     * Snap transaction requests received
+     */
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public int statusLookupCount() {
+        return statusLookups.get();
+    }
+
+    /**
+     * Requests received but not yet answered
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().endsWith("/status")) {
+            statusLookups.incrementAndGet();
+            respond(exchange, lookupStatus, lookupStatus == 200
+                ? "{\"status_code\":\"201\",\"transaction_status\":\"pending\"}"
+                : "{\"status_code\":\"404\",\"status_message\":\"Transaction doesn't exist.\"}");
+            return;
+        }
+        int request = requests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        inFlight.incrementAndGet();
+        try {
+            Thread.sleep(latency.toMillis());
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        Integer scripted = scriptedStatuses.poll();
+        int status = scripted != null ? scripted : defaultStatus;
+        String body = status == 201 || status == 200
+            ? "{\"token\":\"stub-token-" + request + "\",\"redirect_url\":\"https://stub.midtrans/" + request + "\"}"
+            : "{\"error_messages\":[\"stub error " + status + "\"]}";
+        respond(exchange, status, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        releaseResponses();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
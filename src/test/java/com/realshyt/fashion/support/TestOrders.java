@@ -0,0 +1,77 @@
+package com.realshyt.fashion.support;
+
+import com.realshyt.fashion.entity.Order;
+import com.realshyt.fashion.entity.OrderItem;
+import com.realshyt.fashion.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Products and orders for tests. Products come back unsaved; order items reference products by id
+ * only, the way checkout requests arrive, and get their price from the catalog on createOrder.
+ */
+public final class TestOrders {
+
+    private TestOrders() {
+    }
+
+    public static Product product(String name, String price, String category, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setCategory(category);
+        product.setStockQuantity(stock);
+        return product;
+    }
+
+    public static Builder order(String customerName, String customerEmail) {
+        return new Builder(customerName, customerEmail);
+    }
+
+    /**
+     * Order for the n-th of many distinct customers
+     */
+    public static Builder customer(int n) {
+        return order("Customer " + n, "customer" + n + "@example.com").shippingAddress("Jl. Sudirman " + n);
+    }
+
+    public static final class Builder {
+
+        private final Order order = new Order();
+
+        private Builder(String customerName, String customerEmail) {
+            order.setCustomerName(customerName);
+            order.setCustomerEmail(customerEmail);
+            order.setShippingAddress("Jl. Sudirman 1");
+        }
+
+        public Builder shippingAddress(String shippingAddress) {
+            order.setShippingAddress(shippingAddress);
+            return this;
+        }
+
+        public Builder item(Long productId, int quantity) {
+            Product product = new Product();
+            product.setId(productId);
+
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(quantity);
+            order.getOrderItems().add(item);
+            return this;
+        }
+
+        /**
+         * One unit of each product
+         */
+        public Builder items(List<Long> productIds) {
+            productIds.forEach(productId -> item(productId, 1));
+            return this;
+        }
+
+        public Order build() {
+            return order;
+        }
+    }
+}